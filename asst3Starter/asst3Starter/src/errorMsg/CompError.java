@@ -18,6 +18,13 @@ public class CompError extends CompMessage
         super(m);
     }
 
+    private CompError(String id, String m, Object... args)
+    {
+        super(id, m, args);
+    }
+
+    public String kind() { return "error"; }
+
     /**
      * Represent an error as a string using the format.
      * {@code file::line.char: error message}
@@ -42,7 +49,8 @@ public class CompError extends CompMessage
      */
     public static CompError BigChar(char c, List<Character> cs)
     {
-        return new CompError("found character string " + c + cs.toString());
+        return new CompError("BigChar",
+              "found character string " + c + cs.toString(), String.valueOf(c), cs.toString());
     }
 
     /**
@@ -51,7 +59,7 @@ public class CompError extends CompMessage
      */
     public static CompError EmptyChar()
     {
-        return new CompError("found empty character");
+        return new CompError("EmptyChar", "found empty character");
     }
 
     /**
@@ -60,7 +68,8 @@ public class CompError extends CompMessage
      */
     public static CompError IllegalChar(char c)
     {
-        return new CompError("Illegal character ("+(int)c+") found.");
+        return new CompError("IllegalChar",
+              "Illegal character ("+(int)c+") found.", String.valueOf(c));
     }
 
     /**
@@ -71,7 +80,7 @@ public class CompError extends CompMessage
      */
     public static CompError OutOfRange(String s)
     {
-        return new CompError("Integer literal value "+s+" is out of range.");
+        return new CompError("OutOfRange", "Integer literal value "+s+" is out of range.", s);
     }
 
     /**
@@ -80,7 +89,7 @@ public class CompError extends CompMessage
      */
     public static CompError UnterminatedChar()
     {
-        return new CompError("unterminated character literal");
+        return new CompError("UnterminatedChar", "unterminated character literal");
     }
 
     /**
@@ -89,7 +98,7 @@ public class CompError extends CompMessage
      */
     public static CompError UnterminatedSingleLineComment()
     {
-        return new CompError("unterminated single line comment");
+        return new CompError("UnterminatedSingleLineComment", "unterminated single line comment");
     }
 
     /**
@@ -98,7 +107,7 @@ public class CompError extends CompMessage
      */
     public static CompError UnterminatedMultiLineComment()
     {
-        return new CompError("unterminated multi line comment");
+        return new CompError("UnterminatedMultiLineComment", "unterminated multi line comment");
     }
 
     /**
@@ -107,7 +116,7 @@ public class CompError extends CompMessage
      */
     public static CompError UnterminatedString()
     {
-        return new CompError("unterminated string literal");
+        return new CompError("UnterminatedString", "unterminated string literal");
     }
 
     //////////////////////////////////////////////////////////////////////////////////
@@ -126,7 +135,7 @@ public class CompError extends CompMessage
      */
     public static CompError DuplicateClass(String name)
     {
-        return new CompError("duplicate class name " + name);
+        return new CompError("DuplicateClass", "duplicate class name " + name, name);
     }
 
     /**
@@ -145,7 +154,7 @@ public class CompError extends CompMessage
      */
     public static CompError DuplicateField(String name)
     {
-        return new CompError("duplicate field name " + name);
+        return new CompError("DuplicateField", "duplicate field name " + name, name);
     }
 
     /**
@@ -163,7 +172,7 @@ public class CompError extends CompMessage
      */
     public static CompError DuplicateMethod(String name)
     {
-        return new CompError("duplicate method name " + name);
+        return new CompError("DuplicateMethod", "duplicate method name " + name, name);
     }
 
     /**
@@ -176,7 +185,7 @@ public class CompError extends CompMessage
      */
     public static CompError IllegalSuperclass(String name)
     {
-        return new CompError(name+" cannot be a superclass");
+        return new CompError("IllegalSuperclass", name+" cannot be a superclass", name);
     }
 
     /**
@@ -188,7 +197,7 @@ public class CompError extends CompMessage
      */
     public static CompError UndefinedSuperclass(String name)
     {
-        return new CompError("undefined super class " + name);
+        return new CompError("UndefinedSuperclass", "undefined super class " + name, name);
     }
 
     /**
@@ -204,7 +213,7 @@ public class CompError extends CompMessage
      */
     public static CompError InheritanceCycle(String name)
     {
-        return new CompError("inheritance cycle detected: "+name);
+        return new CompError("InheritanceCycle", "inheritance cycle detected: "+name, name);
     }
 
     /**
@@ -221,7 +230,7 @@ public class CompError extends CompMessage
      */
     public static CompError DuplicateVariable(String name)
     {
-        return new CompError("duplicate variable name " + name);
+        return new CompError("DuplicateVariable", "duplicate variable name " + name, name);
     }
 
     /**
@@ -236,7 +245,7 @@ public class CompError extends CompMessage
      */
     public static CompError IllegalLength()
     {
-        return new CompError("Illegal name 'length' used as a field");
+        return new CompError("IllegalLength", "Illegal name 'length' used as a field");
     }
 
     /**
@@ -251,7 +260,7 @@ public class CompError extends CompMessage
      */
     public static CompError TopLevelBreak()
     {
-        return new CompError("Break statement not in loop or switch");
+        return new CompError("TopLevelBreak", "Break statement not in loop or switch");
     }
 
     /**
@@ -266,7 +275,8 @@ public class CompError extends CompMessage
      */
     public static CompError UninitializedVariable(String name)
     {
-        return new CompError("Reference to uninitialized variable " + name);
+        return new CompError("UninitializedVariable",
+              "Reference to uninitialized variable " + name, name);
     }
 
     /**
@@ -280,7 +290,7 @@ public class CompError extends CompMessage
      */
     public static CompError UndefinedVariable(String name)
     {
-        return new CompError("Undefined variable name "+name);
+        return new CompError("UndefinedVariable", "Undefined variable name "+name, name);
     }
 
     /**
@@ -293,7 +303,7 @@ public class CompError extends CompMessage
      */
     public static CompError UndefinedClass(String name)
     {
-        return new CompError("Undefined class name "+name);
+        return new CompError("UndefinedClass", "Undefined class name "+name, name);
     }
     
     
@@ -318,7 +328,9 @@ public class CompError extends CompMessage
      */
     public static CompError Subtype(Type t1, Type t2)
     {
-        return new CompError("Type-mismatch: " + t1 + " is not a subtype of " + t2);
+        return new CompError("Subtype",
+              "Type-mismatch: " + t1 + " is not a subtype of " + t2,
+              String.valueOf(t1), String.valueOf(t2));
     }
 
     /**
@@ -327,7 +339,7 @@ public class CompError extends CompMessage
      */
     public static CompError Assignment()
     {
-        return new CompError("Assignment target not modifiable");
+        return new CompError("Assignment", "Assignment target not modifiable");
     }
 
     /**
@@ -336,7 +348,7 @@ public class CompError extends CompMessage
      */
     public static CompError ArrayType()
     {
-        return new CompError("Array type expected");
+        return new CompError("ArrayType", "Array type expected");
     }
 
     /**
@@ -353,7 +365,9 @@ public class CompError extends CompMessage
      */
     public static CompError IncompatibleType(Type t1, Type t2)
     {
-        return new CompError("Type-mismatch: "+ t1 + " is not compatible with " + t2);
+        return new CompError("IncompatibleType",
+              "Type-mismatch: "+ t1 + " is not compatible with " + t2,
+              String.valueOf(t1), String.valueOf(t2));
     }
 
     /**
@@ -374,7 +388,8 @@ public class CompError extends CompMessage
      */
     public static CompError UndefinedMethod(String methName, Type t)
     {
-        return new CompError("Method "+methName+" not defined for "+t);
+        return new CompError("UndefinedMethod",
+              "Method "+methName+" not defined for "+t, methName, String.valueOf(t));
     }
 
     /**
@@ -393,8 +408,9 @@ public class CompError extends CompMessage
      */
     public static CompError ParameterMismatch(String methName, int argSize, int paramSize)
     {
-        return new CompError("Wrong number of parameters in call to '"+
-              methName+"': "+ argSize+" ("+ paramSize+" expected)");
+        return new CompError("ParameterMismatch", "Wrong number of parameters in call to '"+
+              methName+"': "+ argSize+" ("+ paramSize+" expected)",
+              methName, argSize, paramSize);
     }
 
     /**
@@ -412,7 +428,8 @@ public class CompError extends CompMessage
      */
     public static CompError UndefinedField(String fieldName, Type t)
     {
-        return new CompError("Field "+fieldName+" not defined for "+t);
+        return new CompError("UndefinedField",
+              "Field "+fieldName+" not defined for "+t, fieldName, String.valueOf(t));
     }
 
     /**
@@ -421,7 +438,9 @@ public class CompError extends CompMessage
      */
     public static CompError TypeMismatch(Type t1, Type t2)
     {
-        return new CompError("Type-mismatch: expected " + t2 + " found " + t1);
+        return new CompError("TypeMismatch",
+              "Type-mismatch: expected " + t2 + " found " + t1,
+              String.valueOf(t1), String.valueOf(t2));
     }
 
     /**
@@ -430,7 +449,7 @@ public class CompError extends CompMessage
      */
     public static CompError NewRunMain()
     {
-        return new CompError("Cannot create object of type 'RunMain'");
+        return new CompError("NewRunMain", "Cannot create object of type 'RunMain'");
     }
 
     /////////////////////////
@@ -454,7 +473,8 @@ public class CompError extends CompMessage
      */
     public static CompError ReturnOverride()
     {
-        return new CompError("Method has different return type than superclass method.");
+        return new CompError("ReturnOverride",
+              "Method has different return type than superclass method.");
     }
 
     /**
@@ -473,7 +493,8 @@ public class CompError extends CompMessage
      */
     public static CompError ArgTypeOverride()
     {
-        return new CompError("Method has different argument types than superclass method.");
+        return new CompError("ArgTypeOverride",
+              "Method has different argument types than superclass method.");
     }
 
     /**
@@ -492,7 +513,8 @@ public class CompError extends CompMessage
      */
     public static CompError NumArgsOverride()
     {
-        return new CompError("Method has different number of arguments than superclass method.");
+        return new CompError("NumArgsOverride",
+              "Method has different number of arguments than superclass method.");
     }
 
     /////////////////////////
@@ -512,7 +534,8 @@ public class CompError extends CompMessage
      */
     public static CompError FirstLabelSwitch()
     {
-        return new CompError("First statement of a switch must be a case or default");
+        return new CompError("FirstLabelSwitch",
+              "First statement of a switch must be a case or default");
     }
 
     /**
@@ -528,7 +551,8 @@ public class CompError extends CompMessage
      */
     public static CompError LabelAfterBreakSwitch()
     {
-        return new CompError("The statement following a break must be a case or default");
+        return new CompError("LabelAfterBreakSwitch",
+              "The statement following a break must be a case or default");
     }
 
     /**
@@ -544,7 +568,7 @@ public class CompError extends CompMessage
      */
     public static CompError EndBreakSwitch()
     {
-        return new CompError("Last statement of a switch must be a break");
+        return new CompError("EndBreakSwitch", "Last statement of a switch must be a break");
     }
 
     /**
@@ -560,7 +584,7 @@ public class CompError extends CompMessage
      */
     public static CompError DuplicateDefaultSwitch()
     {
-        return new CompError("More than one default found in switch");
+        return new CompError("DuplicateDefaultSwitch", "More than one default found in switch");
     }
 
     /**
@@ -578,7 +602,7 @@ public class CompError extends CompMessage
      */
     public static CompError DuplicateKeySwitch()
     {
-        return new CompError("Same value found in multiple cases");
+        return new CompError("DuplicateKeySwitch", "Same value found in multiple cases");
     }
 
     /**
@@ -594,6 +618,6 @@ public class CompError extends CompMessage
      */
     public static CompError NonConstantCase()
     {
-        return new CompError("case labels must be constant values.");
+        return new CompError("NonConstantCase", "case labels must be constant values.");
     }
 }
@@ -15,12 +15,36 @@ public class CompMessage implements Comparable<CompMessage>
     protected int line;
     protected int chr;
     protected String file;
+    // the name of the factory method that made the message (null if it
+    // was not made by one), and the values it was given
+    protected String id;
+    protected Object[] args;
 
     public CompMessage(String m)
+    {
+        this(null, m);
+    }
+
+    protected CompMessage(String id, String m, Object... args)
     {
         message = m;
+        this.id = id;
+        this.args = args;
     }
 
+    /**
+     * @return what sort of message this is: "error", "warning", "token"
+     *         or "info"
+     */
+    public String kind()   { return "info"; }
+
+    public String getMessage() { return message; }
+    public int getLine()       { return line; }
+    public int getChar()       { return chr; }
+    public String getFile()    { return file; }
+    public String getId()      { return id; }
+    public Object[] getArgs()  { return args; }
+
     /**
      * compare message based on their position in the file.
      */
@@ -6,11 +6,13 @@ package errorMsg;
  */
 public class CompWarning extends CompMessage
 {
-    private CompWarning(String m)
+    private CompWarning(String id, String m, Object... args)
     {
-        super(m);
+        super(id, m, args);
     }
 
+    public String kind() { return "warning"; }
+
     public String toString()
     {
         return file + "::" + line + "." + chr + "(warning): " + message;
@@ -28,7 +30,7 @@ public class CompWarning extends CompMessage
      */
     public static CompWarning CommentInComment()
     {
-        return new CompWarning("found /* inside multi-line comment");
+        return new CompWarning("CommentInComment", "found /* inside multi-line comment");
     }
 
     ////////////////////////////////////////////////////
@@ -51,7 +53,7 @@ public class CompWarning extends CompMessage
      */
     public static CompWarning UnusedClass(String name)
     {
-        return new CompWarning("unused class "+name);
+        return new CompWarning("UnusedClass", "unused class "+name, name);
     }
 
     /**
@@ -68,7 +70,7 @@ public class CompWarning extends CompMessage
      */
     public static CompWarning UnusedVariable(String name)
     {
-        return new CompWarning("unused variable "+name);
+        return new CompWarning("UnusedVariable", "unused variable "+name, name);
     }
 
     ////////////////////////////////////////////////////
@@ -82,7 +84,7 @@ public class CompWarning extends CompMessage
      */
     public static CompWarning NegativeIndex()
     {
-        return new CompWarning("Array index cannot be negative");
+        return new CompWarning("NegativeIndex", "Array index cannot be negative");
     }
 
     /**
@@ -91,7 +93,7 @@ public class CompWarning extends CompMessage
      */
     public static CompWarning NegativeLength()
     {
-        return new CompWarning("Array length cannot be negative");
+        return new CompWarning("NegativeLength", "Array length cannot be negative");
     }
 
     /**
@@ -99,6 +101,6 @@ public class CompWarning extends CompMessage
      */
     public static CompWarning UnreachableCode()
     {
-        return new CompWarning("Unreachable code");
+        return new CompWarning("UnreachableCode", "Unreachable code");
     }
 }
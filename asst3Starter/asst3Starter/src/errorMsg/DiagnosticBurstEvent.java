@@ -0,0 +1,30 @@
+package errorMsg;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event spanning a burst of diagnostics: it begins
+ * with the first message registered in a phase and ends with the phase.
+ */
+@Name("minijava.DiagnosticBurst")
+@Label("Diagnostic Burst")
+@Category({"MiniJava", "Compiler"})
+@Description("Diagnostics registered during one compiler phase")
+public class DiagnosticBurstEvent extends Event
+{
+    @Label("Phase")
+    public String phase;
+
+    @Label("Errors")
+    public int errors;
+
+    @Label("Warnings")
+    public int warnings;
+
+    @Label("Other Messages")
+    public int other;
+}
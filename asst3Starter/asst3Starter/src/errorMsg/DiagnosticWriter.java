@@ -0,0 +1,207 @@
+package errorMsg;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes compiler messages as machine-readable records, either one JSON
+ * object per line (NDJSON) or a SARIF 2.1.0 log.
+ *
+ * Each message is written field by field as it is handed over, through
+ * a buffered writer, so the memory used does not grow with the number
+ * of messages and the text format of toString is never built.
+ *
+ * An NDJSON record looks like
+ * {@code {"kind":"error","file":"A.java","line":3,"char":7,
+ * "id":"UndefinedVariable","args":["x"],"message":"Undefined variable name x"}}
+ * where id and args are left out for messages not made by a factory
+ * method of CompError or CompWarning.
+ */
+public class DiagnosticWriter
+{
+    public static final int NDJSON = 0;
+    public static final int SARIF = 1;
+
+    private Writer out;
+    private int format;
+    private boolean first;
+
+    /**
+     * @param os where to write; it is flushed but not closed by close()
+     * @param format NDJSON or SARIF
+     */
+    public DiagnosticWriter(OutputStream os, int format)
+    {
+        this.out = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8), 1 << 16);
+        this.format = format;
+        this.first = true;
+    }
+
+    /**
+     * @return the format with the given name ("ndjson" or "sarif"), or -1
+     */
+    public static int formatNamed(String name)
+    {
+        if(name.equals("ndjson")) return NDJSON;
+        if(name.equals("sarif"))  return SARIF;
+        return -1;
+    }
+
+    /**
+     * Write whatever comes before the messages.
+     */
+    public void begin() throws IOException
+    {
+        if(format == SARIF)
+        {
+            out.write("{\"$schema\":\"https://json.schemastore.org/sarif-2.1.0.json\",");
+            out.write("\"version\":\"2.1.0\",\"runs\":[{\"tool\":{\"driver\":");
+            out.write("{\"name\":\"MiniJava\"}},\"results\":[\n");
+        }
+        first = true;
+    }
+
+    /**
+     * Write one message.
+     */
+    public void write(CompMessage m) throws IOException
+    {
+        if(format == SARIF)
+        {
+            writeSarif(m);
+        }
+        else
+        {
+            writeNdjson(m);
+        }
+    }
+
+    /**
+     * Write whatever comes after the messages, and flush.
+     */
+    public void end() throws IOException
+    {
+        if(format == SARIF)
+        {
+            out.write("]}]}\n");
+        }
+        out.flush();
+    }
+
+    private void writeNdjson(CompMessage m) throws IOException
+    {
+        out.write("{\"kind\":\"");
+        out.write(m.kind());
+        out.write("\",\"file\":");
+        string(m.file);
+        out.write(",\"line\":");
+        out.write(Integer.toString(m.line));
+        out.write(",\"char\":");
+        out.write(Integer.toString(m.chr));
+        if(m.id != null)
+        {
+            out.write(",\"id\":");
+            string(m.id);
+            out.write(",\"args\":");
+            args(m.args);
+        }
+        out.write(",\"message\":");
+        string(m.message);
+        out.write("}\n");
+    }
+
+    private void writeSarif(CompMessage m) throws IOException
+    {
+        if(!first) out.write(",\n");
+        first = false;
+        out.write("{");
+        if(m.id != null)
+        {
+            out.write("\"ruleId\":");
+            string(m.id);
+            out.write(",");
+        }
+        out.write("\"level\":\"");
+        out.write(level(m));
+        out.write("\",\"message\":{\"text\":");
+        string(m.message);
+        if(m.id != null)
+        {
+            out.write(",\"arguments\":");
+            args(m.args);
+        }
+        out.write("},\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{\"uri\":");
+        string(m.file);
+        out.write("},\"region\":{\"startLine\":");
+        out.write(Integer.toString(Math.max(m.line, 1)));
+        out.write(",\"startColumn\":");
+        out.write(Integer.toString(Math.max(m.chr, 1)));
+        out.write("}}}]}");
+    }
+
+    // the SARIF level of a message
+    private static String level(CompMessage m)
+    {
+        switch(m.kind())
+        {
+            case "error":   return "error";
+            case "warning": return "warning";
+            default:        return "note";
+        }
+    }
+
+    // write the arguments as a JSON array: numbers as numbers, anything
+    // else as a string
+    private void args(Object[] args) throws IOException
+    {
+        out.write('[');
+        for(int i = 0; args != null && i < args.length; i++)
+        {
+            if(i > 0) out.write(',');
+            if(args[i] instanceof Integer)
+            {
+                out.write(args[i].toString());
+            }
+            else
+            {
+                string(args[i] == null ? null : args[i].toString());
+            }
+        }
+        out.write(']');
+    }
+
+    // write a JSON string, escaping as we go
+    private void string(String s) throws IOException
+    {
+        if(s == null)
+        {
+            out.write("null");
+            return;
+        }
+        out.write('"');
+        int from = 0;
+        for(int i = 0; i < s.length(); i++)
+        {
+            char c = s.charAt(i);
+            if(c >= 0x20 && c != '"' && c != '\\') continue;
+            out.write(s, from, i - from);
+            from = i + 1;
+            switch(c)
+            {
+                case '"':  out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n"); break;
+                case '\r': out.write("\\r"); break;
+                case '\t': out.write("\\t"); break;
+                default:
+                    out.write(String.format("\\u%04x", (int)c));
+            }
+        }
+        out.write(s, from, s.length() - from);
+        out.write('"');
+    }
+}
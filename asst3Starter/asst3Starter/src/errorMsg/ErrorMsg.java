@@ -5,19 +5,42 @@ import java.awt.*;
 import java.awt.event.*;
 import java.util.TreeSet;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.io.IOException;
 import java.io.PrintStream;
 
 /**
  * A class that hold all of the messages generated by the compiler.
+ *
+ * Messages may be registered from several threads at once: they are
+ * appended to a lock-free queue and only moved into the sorted message
+ * set when the messages are read.  Messages registered by one thread
+ * keep their order, so a single-threaded phase sees exactly the old
+ * behavior.  The line table is filled in by the scanner and must not
+ * change while other threads register messages.
  */
 public class ErrorMsg
 {
     private TreeMap<Integer,Integer> lines;
     private TreeSet<CompMessage> messages;
+    // messages registered but not yet moved into 'messages'
+    private ConcurrentLinkedQueue<CompMessage> pending;
     private int lineNum;
+    // added to every position registered (see relocate)
+    private int shift;
+    // whether newline() may add to the line table (false when it is shared)
+    private boolean ownLines;
     private String file;
-    public boolean anyErrors;
-    public boolean anyWarnings;
+    public volatile boolean anyErrors;
+    public volatile boolean anyWarnings;
+    private AtomicInteger errorCount;
+
+    // the open diagnostic burst, if any (see closeBurst)
+    private volatile DiagnosticBurstEvent burst;
+    private AtomicInteger burstErrors;
+    private AtomicInteger burstWarnings;
+    private AtomicInteger burstOther;
 
     /**
      * Create an ErrorMsg object.
@@ -26,13 +49,90 @@ public class ErrorMsg
      */
     public ErrorMsg(String f)
     {
-        file = f;
-        lines = new TreeMap<Integer,Integer>();
+        this(f, new TreeMap<Integer,Integer>());
         lines.put(-1,0);
         lines.put(0,1);
         lineNum = 1;
+        ownLines = true;
+    }
+
+    /**
+     * Create an ErrorMsg object with a given line table.
+     */
+    private ErrorMsg(String f, TreeMap<Integer,Integer> lineTable)
+    {
+        file = f;
+        lines = lineTable;
         messages = new TreeSet<CompMessage>();
+        pending = new ConcurrentLinkedQueue<CompMessage>();
         anyErrors = false;
+        errorCount = new AtomicInteger();
+        burstErrors = new AtomicInteger();
+        burstWarnings = new AtomicInteger();
+        burstOther = new AtomicInteger();
+    }
+
+    /**
+     * Create a child ErrorMsg for one task of a parallel phase.
+     * The child shares this object's line table, which must no longer
+     * change, and keeps its messages until they are merged back.
+     *
+     * @return the child
+     */
+    public ErrorMsg fork()
+    {
+        ErrorMsg child = new ErrorMsg(file, lines);
+        child.lineNum = lineNum;
+        return child;
+    }
+
+    /**
+     * Create a child ErrorMsg for parsing a piece of the file on its own,
+     * where position 0 of the piece is position 'shift' of the file.
+     * Positions registered with the child are shifted into the file's
+     * positions; it shares this object's line table, and its newline
+     * calls are ignored.  Merge it back like a child made by fork.
+     *
+     * @param shift the file position of the start of the piece
+     * @return the child
+     */
+    public ErrorMsg relocate(int shift)
+    {
+        ErrorMsg child = fork();
+        child.shift = shift;
+        return child;
+    }
+
+    /**
+     * Add the messages of a child created by fork.
+     * Merging children in a fixed order gives the same messages as
+     * registering them sequentially in that order.  The child's messages
+     * are copied out under the child's lock, and only then is this
+     * object's lock taken, so the two locks are never held together.
+     *
+     * @param child the child to merge
+     */
+    public void merge(ErrorMsg child)
+    {
+        TreeSet<CompMessage> theirs = child.sortedMessages();
+        synchronized(this)
+        {
+            drain();
+            messages.addAll(theirs);
+        }
+        if(child.anyErrors)   anyErrors = true;
+        if(child.anyWarnings) anyWarnings = true;
+        errorCount.addAndGet(child.errorCount.get());
+        int e = child.burstErrors.getAndSet(0);
+        int w = child.burstWarnings.getAndSet(0);
+        int o = child.burstOther.getAndSet(0);
+        if(e + w + o > 0)
+        {
+            openBurst();
+            burstErrors.addAndGet(e);
+            burstWarnings.addAndGet(w);
+            burstOther.addAndGet(o);
+        }
     }
 
     /**
@@ -47,6 +147,7 @@ public class ErrorMsg
      */
     public void newline(int pos)
     {
+        if(!ownLines) return;
         lineNum++;
         lines.put(pos,lineNum);
     }
@@ -57,10 +158,36 @@ public class ErrorMsg
      */
     public String lineAndChar(int pos)
     {
+        if(pos >= 0) pos += shift;
         int linePos = lines.floorKey(pos);
         return lines.get(linePos) + "." + (pos-linePos);
     }
 
+    /**
+     * Fill in the position of a message and queue it.
+     */
+    private void record(int pos, CompMessage m)
+    {
+        if(pos >= 0) pos += shift;
+        int linePos = lines.floorKey(pos);
+        m.line = lines.get(linePos);
+        m.chr = pos-linePos;
+        m.file = file;
+        pending.add(m);
+    }
+
+    /**
+     * Move the queued messages into the sorted message set.
+     */
+    private synchronized void drain()
+    {
+        CompMessage m;
+        while((m = pending.poll()) != null)
+        {
+            messages.add(m);
+        }
+    }
+
     /**
      * register an error at the current position.
      *
@@ -69,13 +196,11 @@ public class ErrorMsg
      */
     public void error(int pos, CompError err)
     {
-        int linePos = lines.floorKey(pos);
-        int line = lines.get(linePos);
-        err.line = line;
-        err.chr = pos-linePos;
-        err.file = file;
-        messages.add(err);
+        record(pos, err);
+        errorCount.incrementAndGet();
         anyErrors = true;
+        openBurst();
+        burstErrors.incrementAndGet();
     }
 
     /**
@@ -86,13 +211,10 @@ public class ErrorMsg
      */
     public void warning(int pos, CompWarning warn)
     {
-        int linePos = lines.floorKey(pos);
-        int line = lines.get(linePos);
-        warn.line = line;
-        warn.chr = pos-linePos;
-        warn.file = file;
-        messages.add(warn);
+        record(pos, warn);
         anyWarnings = true;
+        openBurst();
+        burstWarnings.incrementAndGet();
     }
 
     /**
@@ -103,13 +225,7 @@ public class ErrorMsg
      */
     public void token(int pos, String s)
     {
-        int linePos = lines.floorKey(pos);
-        int line = lines.get(linePos);
-        Token t = new Token(s);
-        t.line = line;
-        t.chr = pos-linePos;
-        t.file = file;
-        messages.add(t);
+        record(pos, new Token(s));
     }
 
     /**
@@ -120,13 +236,9 @@ public class ErrorMsg
      */
     public void info(int pos, String s)
     {
-        int linePos = lines.floorKey(pos);
-        int line = lines.get(linePos);
-        CompMessage m = new CompMessage(s);
-        m.line = line;
-        m.chr = pos-linePos;
-        m.file = file;
-        messages.add(m);
+        record(pos, new CompMessage(s));
+        openBurst();
+        burstOther.incrementAndGet();
     }
 
     /**
@@ -135,44 +247,130 @@ public class ErrorMsg
      */
     public void error(int pos, String s)
     {
-        int linePos = lines.floorKey(pos);
-        int line = lines.get(linePos);
-        CompMessage m = new CompError(s);
-        m.line = line;
-        m.chr = pos-linePos;
-        m.file = file;
-        messages.add(m);
+        record(pos, new CompError(s));
+        errorCount.incrementAndGet();
         anyErrors = true;
+        openBurst();
+        burstErrors.incrementAndGet();
+    }
+
+    /**
+     * The number of errors registered so far.  This is safe to poll from
+     * the tasks of a parallel phase that want to give up early.
+     *
+     * @return the number of errors
+     */
+    public int errorCount()
+    {
+        return errorCount.get();
+    }
+
+    /**
+     * Start a diagnostic burst if none is open.
+     */
+    private void openBurst()
+    {
+        if(burst != null) return;
+        synchronized(burstErrors)
+        {
+            if(burst == null)
+            {
+                DiagnosticBurstEvent b = new DiagnosticBurstEvent();
+                b.begin();
+                burst = b;
+            }
+        }
+    }
+
+    /**
+     * End the current burst of diagnostics, if any were registered
+     * since the last call, and commit it to Flight Recorder.
+     *
+     * @param phase the compiler phase the burst belongs to
+     */
+    public void closeBurst(String phase)
+    {
+        DiagnosticBurstEvent b;
+        synchronized(burstErrors)
+        {
+            b = burst;
+            burst = null;
+        }
+        if(b == null) return;
+        b.end();
+        b.errors = burstErrors.getAndSet(0);
+        b.warnings = burstWarnings.getAndSet(0);
+        b.other = burstOther.getAndSet(0);
+        if(b.shouldCommit())
+        {
+            b.phase = phase;
+            b.commit();
+        }
     }
 
     /**
      * Print out all of the messages we've registered.
      */
-    public void printMessages()
+    public synchronized void printMessages()
     {
+        drain();
         for(CompMessage msg : messages)
         {
             System.out.println(msg);
         }
     }
-    public void printMessages(PrintStream out)
+    public synchronized void printMessages(PrintStream out)
     {
+        drain();
         for(CompMessage msg : messages)
         {
             out.println(msg);
         }
     }
 
-    public void writeMessages(StringBuilder sb)
+    /**
+     * Write all of the messages we've registered as structured records.
+     *
+     * @param w the writer; begin and end are called here
+     */
+    public synchronized void writeMessages(DiagnosticWriter w) throws IOException
     {
+        drain();
+        w.begin();
+        for(CompMessage msg : messages)
+        {
+            w.write(msg);
+        }
+        w.end();
+    }
+
+    public synchronized void writeMessages(StringBuilder sb)
+    {
+        drain();
         for(CompMessage msg : messages)
         {
             sb.append(msg+"\n");
         }
     }
 
+    /**
+     * @return the number of messages registered so far
+     */
+    public synchronized int messageCount()
+    {
+        drain();
+        return messages.size();
+    }
+
     public boolean equals(ErrorMsg other)
     {
-        return messages.equals(other.messages);
+        return sortedMessages().equals(other.sortedMessages());
+    }
+
+    // a copy of the messages, taken under this object's lock
+    private synchronized TreeSet<CompMessage> sortedMessages()
+    {
+        drain();
+        return new TreeSet<CompMessage>(messages);
     }
 }
@@ -0,0 +1,110 @@
+package errorMsg;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * A stress check for registering messages into one ErrorMsg from many
+ * threads at once.  Run it with
+ * <pre>
+ *   java errorMsg.ErrorMsgStress [threads [messagesPerThread]]
+ * </pre>
+ * (64 threads and 5000 messages each by default).  Half the threads
+ * register directly, the other half into a child made by fork() that
+ * they merge back when done, while reader threads keep counting the
+ * messages.  Every message has its own position, so none of them may
+ * be lost; the check also compares the result with the same messages
+ * registered by a single thread.  It prints what it found and exits
+ * with status 1 if anything is missing.
+ */
+public class ErrorMsgStress
+{
+    // whether writer threads are still registering
+    private static volatile boolean writing;
+
+    public static void main(String[] args) throws InterruptedException
+    {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+
+        ErrorMsg shared = new ErrorMsg("stress.java");
+        CountDownLatch start = new CountDownLatch(1);
+        ArrayList<Thread> writers = new ArrayList<Thread>();
+        for(int t = 0; t < threads; t++)
+        {
+            int first = t * perThread;
+            boolean forked = t % 2 == 1;
+            writers.add(new Thread(() -> {
+                await(start);
+                ErrorMsg into = forked ? shared.fork() : shared;
+                register(into, first, perThread);
+                if(forked) shared.merge(into);
+            }));
+        }
+
+        // readers drain the queue while the writers are still at it
+        writing = true;
+        ArrayList<Thread> readers = new ArrayList<Thread>();
+        for(int r = 0; r < 2; r++)
+        {
+            readers.add(new Thread(() -> {
+                await(start);
+                while(writing)
+                {
+                    shared.messageCount();
+                    shared.errorCount();
+                }
+            }));
+        }
+
+        for(Thread th : writers) th.start();
+        for(Thread th : readers) th.start();
+        start.countDown();
+        for(Thread th : writers) th.join();
+        writing = false;
+        for(Thread th : readers) th.join();
+
+        ErrorMsg reference = new ErrorMsg("stress.java");
+        register(reference, 0, threads * perThread);
+
+        int total = threads * perThread;
+        int errors = (total + 1) / 2;
+        boolean ok = true;
+        ok &= check("messages", shared.messageCount(), total);
+        ok &= check("errors", shared.errorCount(), errors);
+        ok &= check("anyErrors", shared.anyErrors ? 1 : 0, 1);
+        ok &= check("anyWarnings", shared.anyWarnings ? 1 : 0, 1);
+        ok &= check("same as sequential", shared.equals(reference) ? 1 : 0, 1);
+        System.out.println(ok ? "ok" : "FAILED");
+        if(!ok) System.exit(1);
+    }
+
+    // register n messages at positions first, first+1, ...; even
+    // positions get an error, odd ones a warning
+    private static void register(ErrorMsg e, int first, int n)
+    {
+        for(int pos = first; pos < first + n; pos++)
+        {
+            if(pos % 2 == 0) e.error(pos, CompError.EmptyChar());
+            else             e.warning(pos, CompWarning.UnreachableCode());
+        }
+    }
+
+    private static boolean check(String what, int found, int expected)
+    {
+        System.out.println(what + ": " + found + " (expected " + expected + ")");
+        return found == expected;
+    }
+
+    private static void await(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await();
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -11,6 +11,8 @@ public class Token extends CompMessage
         super(m);
     }
 
+    public String kind() { return "token"; }
+
     public String toString()
     {
         return line + "." + chr + ": " + message;
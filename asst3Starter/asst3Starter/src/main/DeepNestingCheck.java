@@ -0,0 +1,179 @@
+package main;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * A check that the compiler handles programs nested far deeper than the
+ * Java stack would allow a recursive walk to go.  Run it with
+ * <pre>
+ *   java main.DeepNestingCheck [depth]
+ * </pre>
+ * (1000 levels by default).  For each kind of nesting it generates a
+ * program nested that deep, compiles it with -pp, -parallel -pp, -vpp
+ * and -p on a thread with half the usual stack, and checks that the
+ * compiler finishes, that it writes some output, and that -parallel -pp
+ * prints the same as -pp.  It prints a line per program and mode, and
+ * exits with status 1 if any of them failed.
+ *
+ * The "comb" program nests classes rather than statements: a chain of
+ * subclasses 20 times as deep, each with a second, leaf subclass, which
+ * the class hierarchy index must handle in memory linear in its size.
+ *
+ * Nested casts are not checked: the generated parser backtracks over
+ * them, recursively and in time exponential in the depth.  The
+ * generated scanner takes time quadratic in the depth, which is what
+ * keeps the default depth down.
+ */
+public class DeepNestingCheck
+{
+    // the kinds of nesting, and the display modes they are compiled in
+    private static final String[] KINDS = {
+        "not", "plus", "call", "field", "lookup",
+        "if", "while", "block", "switch", "comb",
+    };
+    private static final String[][] MODES = {
+        {"-pp"}, {"-parallel", "-pp"}, {"-vpp"}, {"-p"},
+    };
+
+    // the stack size of the compiling thread
+    private static final long STACK_SIZE = 512 * 1024;
+
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        boolean ok = true;
+        for(String kind : KINDS)
+        {
+            File src = File.createTempFile("deep-" + kind + "-", ".java");
+            try(Writer w = new FileWriter(src))
+            {
+                w.write(program(kind, depth));
+            }
+            byte[] sequential = null;
+            for(String[] mode : MODES)
+            {
+                File out = File.createTempFile("deep-" + kind + "-", ".out");
+                String failure = compile(src, out, mode);
+                byte[] printed = Files.readAllBytes(out.toPath());
+                if(failure == null && printed.length == 0)
+                {
+                    failure = "no output";
+                }
+                if(failure == null && mode[0].equals("-pp"))
+                {
+                    sequential = printed;
+                }
+                else if(failure == null && mode[0].equals("-parallel") &&
+                        !Arrays.equals(printed, sequential))
+                {
+                    failure = "differs from -pp";
+                }
+                System.out.printf("%-8s %-14s %s%n", kind, String.join(" ", mode),
+                                  failure == null ? "ok" : "FAILED: " + failure);
+                ok &= failure == null;
+                out.delete();
+            }
+            src.delete();
+        }
+        System.out.println(ok ? "ok" : "FAILED");
+        if(!ok) System.exit(1);
+    }
+
+    // compile a file on a thread of its own, with a small stack and with
+    // stdout and stderr silenced; returns what went wrong, or null
+    private static String compile(File src, File out, String[] mode) throws InterruptedException
+    {
+        String[] args = Arrays.copyOf(mode, mode.length + 3);
+        args[mode.length] = src.getPath();
+        args[mode.length + 1] = "-o";
+        args[mode.length + 2] = out.getPath();
+
+        Throwable[] thrown = new Throwable[1];
+        Thread t = new Thread(null, () -> Main.main(args), "compile", STACK_SIZE);
+        t.setUncaughtExceptionHandler((th, e) -> thrown[0] = e);
+        PrintStream stdout = System.out;
+        PrintStream stderr = System.err;
+        PrintStream quiet = new PrintStream(OutputStream.nullOutputStream());
+        System.setOut(quiet);
+        System.setErr(quiet);
+        try
+        {
+            t.start();
+            t.join();
+        }
+        finally
+        {
+            System.setOut(stdout);
+            System.setErr(stderr);
+        }
+        return thrown[0] == null ? null : thrown[0].toString();
+    }
+
+    // a program whose main method nests one kind of node depth deep
+    static String program(String kind, int depth)
+    {
+        if(kind.equals("comb")) return comb(20 * depth);
+        StringBuilder sb = new StringBuilder();
+        sb.append("class Main {\n  public void main() {\n");
+        sb.append("    int x = 0;\n    A o = new A();\n    int[] a = new int[1];\n");
+        switch(kind)
+        {
+            case "not":
+                sb.append("    boolean y = ").append("!(".repeat(depth)).append("true")
+                  .append(")".repeat(depth)).append(";\n");
+                break;
+            case "plus":
+                sb.append("    x = x").append(" + x".repeat(depth)).append(";\n");
+                break;
+            case "call":
+                sb.append("    o = o").append(".f()".repeat(depth)).append(";\n");
+                break;
+            case "field":
+                sb.append("    x = o").append(".o".repeat(depth)).append(".x;\n");
+                break;
+            case "lookup":
+                sb.append("    x = ").append("a[".repeat(depth)).append("0")
+                  .append("]".repeat(depth)).append(";\n");
+                break;
+            case "if":
+                sb.append("if (x < 1) { ".repeat(depth)).append("x = 1;")
+                  .append(" } else { x = 2; }".repeat(depth)).append("\n");
+                break;
+            case "while":
+                sb.append("while (x < 1) { ".repeat(depth)).append("x = 1;")
+                  .append(" }".repeat(depth)).append("\n");
+                break;
+            case "block":
+                sb.append("{ ".repeat(depth)).append("x = 1;")
+                  .append(" }".repeat(depth)).append("\n");
+                break;
+            case "switch":
+                sb.append("switch (x) { case 0: ".repeat(depth)).append("x = 1;")
+                  .append(" break; }".repeat(depth)).append("\n");
+                break;
+            default:
+                throw new IllegalArgumentException(kind);
+        }
+        sb.append("  }\n}\n");
+        sb.append("class A {\n  A o;\n  int x;\n  public A f() { return this; }\n}\n");
+        return sb.toString();
+    }
+
+    // a program with a chain of classes depth deep, where every class on
+    // the chain also has a subclass that is a leaf
+    static String comb(int depth)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("class Main {\n  public void main() {\n");
+        sb.append("    C0 c = new C").append(depth).append("();\n  }\n}\n");
+        sb.append("class C0 {\n  int x;\n}\n");
+        for(int i = 1; i <= depth; i++)
+        {
+            sb.append("class C").append(i).append(" extends C").append(i - 1).append(" { }\n");
+            sb.append("class L").append(i).append(" extends C").append(i - 1).append(" { }\n");
+        }
+        return sb.toString();
+    }
+}
@@ -1,20 +1,25 @@
 package main;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
 
 import parse.*;
 import syntaxtree.ClassDecl;
+import syntaxtree.Decl;
+import syntaxtree.MethodDecl;
 import syntaxtree.Program;
 import syntaxtree.AstNode;
+import syntaxtree.IntNodeTable;
+import syntaxtree.NodeIds;
 import visitor.*;
 import errorMsg.ErrorMsg;
+import errorMsg.DiagnosticWriter;
 import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
 
 public class Main
 {
 
-    private static final boolean SCANNER_ONLY = false;
-
     private static final int SILENT = 0;
     private static final int PRINT = 1;
     private static final int PRETTY_PRINT = 2;
@@ -22,11 +27,34 @@ public class Main
     private static final int GEN_AST = 4;
 
     private int mode;
+    private boolean scanOnly;
+    private boolean stats;
+    private boolean parallel;
+    private boolean buildXref;
+    private XrefIndex xref;
+    private boolean buildPositions;
+    private PositionIndex positions;
+    private boolean skim;
+    private Skimmer skimmer;
+    private boolean stream;
+    private boolean memStats;
+    private boolean compact;
+    private boolean prune;
+    private int drawDepth;
+    private int drawListCap;
+    private String drawSelect;
+    private ClassHierarchy hierarchy;
+    private NodeIds nodeIds;
+    private IntNodeTable fieldOffsets;
+    private boolean statsJson;
+    private int diagnosticFormat;
+    private PhaseStats phaseStats;
 
     private String inputFile;
     private String outputFile;
     private InputStream inputStream;
     private PrintStream outputStream;
+    private FileChannel outputChannel;
     ErrorMsg errorMsg;
 
     public static void main(String args[])
@@ -34,6 +62,7 @@ public class Main
         Main mainObj = new Main();
         mainObj.parseCommandLine(args);
         mainObj.errorMsg = new ErrorMsg(mainObj.inputFile);
+        mainObj.phaseStats = new PhaseStats(mainObj.stats);
         mainObj.execMain();
     }
 
@@ -41,14 +70,67 @@ public class Main
     {
         try
         {
+            // number this compilation's nodes from 0
+            nodeIds = NodeIds.begin();
             openFiles();
+            if(scanOnly)
+            {
+                scanPhase();
+                printSummaryMessage();
+                closeFiles();
+                printStats(null, null);
+                return;
+            }
             AstNode ast = (Program)parseFile();
+            compactPhase(ast);
+            positionPhase(ast);
+            beginPhase("semanticPhase1");
             HashMap<String,ClassDecl> env = semanticPhase1(ast);
+            endPhase("semanticPhase1");
+            beginPhase("semanticPhase2");
             semanticPhase2(ast, env);
-            semanticPhase3(ast, env);
+            endPhase("semanticPhase2");
+            if(prune)
+            {
+                beginPhase("prune");
+                prunePhase(ast, env);
+                endPhase("prune");
+            }
+            if(stream)
+            {
+                beginPhase("stream");
+                streamPhase(ast, env);
+                endPhase("stream");
+            }
+            else
+            {
+                beginPhase("semanticPhase3");
+                semanticPhase3(ast, env);
+                endPhase("semanticPhase3");
+            }
+            beginPhase("layout");
+            layoutPhase(ast, env);
+            endPhase("layout");
+            // the bodies of a skimmed file are parsed as they are
+            // displayed, so display it before reporting the messages;
+            // with -stream it was displayed class by class
+            if(skimmer != null && !stream)
+            {
+                beginPhase("displayAst");
+                displayAst(ast);
+                endPhase("displayAst");
+            }
+            beginPhase("printSummaryMessage");
             printSummaryMessage();
-            displayAst(ast);
+            endPhase("printSummaryMessage");
+            if(skimmer == null && !stream)
+            {
+                beginPhase("displayAst");
+                displayAst(ast);
+                endPhase("displayAst");
+            }
             closeFiles();
+            printStats(ast, env);
         }
         catch(Exception e)
         {
@@ -60,6 +142,24 @@ public class Main
     Main()
     {
         mode = SILENT;
+        scanOnly = false;
+        stats = false;
+        parallel = false;
+        buildXref = false;
+        xref = null;
+        buildPositions = false;
+        positions = null;
+        skim = false;
+        skimmer = null;
+        stream = false;
+        memStats = false;
+        compact = false;
+        prune = false;
+        drawDepth = -1;
+        drawListCap = -1;
+        drawSelect = null;
+        statsJson = false;
+        diagnosticFormat = -1;
         inputFile = null;
         outputFile = null;
     }
@@ -74,6 +174,25 @@ public class Main
             else if(arg.equals("-p"))   { mode = PRINT; }
             else if(arg.equals("-pp"))  { mode = PRETTY_PRINT; }
             else if(arg.equals("-vpp")) { mode = VERBOSE_PRETTY_PRINT; }
+            else if(arg.equals("-scan"))       { scanOnly = true; }
+            else if(arg.equals("-parallel"))   { parallel = true; }
+            else if(arg.equals("-xref"))       { buildXref = true; }
+            else if(arg.equals("-positions"))  { buildPositions = true; }
+            else if(arg.equals("-skim"))       { skim = true; }
+            else if(arg.equals("-stream"))     { skim = true; stream = true; }
+            else if(arg.equals("-memstats"))   { memStats = true; }
+            else if(arg.equals("-compact"))    { compact = true; }
+            else if(arg.equals("-prune"))      { prune = true; }
+            else if(arg.equals("-stats"))      { stats = true; }
+            else if(arg.equals("-stats=json")) { stats = true; statsJson = true; }
+            else if(arg.startsWith("-depth="))   { drawDepth = limitNamed(arg, 7); }
+            else if(arg.startsWith("-listcap=")) { drawListCap = limitNamed(arg, 9); }
+            else if(arg.startsWith("-select="))  { drawSelect = arg.substring(8); }
+            else if(arg.startsWith("-diagnostics="))
+            {
+                diagnosticFormat = DiagnosticWriter.formatNamed(arg.substring(13));
+                if(diagnosticFormat < 0) { exitError("Invalid diagnostics format: " + arg.substring(13)); }
+            }
             else if(arg.equals("-o"))
             {
                 i++;
@@ -86,23 +205,57 @@ public class Main
             else                          { exitError("Only one input file allowed"); }
         }
         if(inputFile == null)             { exitError("No input file given"); }
+        if(stream && (mode == PRINT || mode == GEN_AST || buildXref || buildPositions))
+        {
+            exitError("-stream cannot be used with -p, -g, -xref or -positions");
+        }
+        if(skim && (memStats || compact))
+        {
+            exitError("-memstats and -compact cannot be used with -skim or -stream");
+        }
+        if(mode != PRINT && (drawDepth >= 0 || drawListCap >= 0 || drawSelect != null))
+        {
+            exitError("-depth, -listcap and -select can only be used with -p");
+        }
+    }
+
+    // the limit given by a flag such as -depth=N, whose name is len long
+    private int limitNamed(String arg, int len)
+    {
+        try
+        {
+            int n = Integer.parseInt(arg.substring(len));
+            if(n >= 0) return n;
+        }
+        catch(NumberFormatException e)
+        {
+            // reported below
+        }
+        exitError("Invalid limit: " + arg);
+        return -1;
     }
 
     private void openFiles()
     {
         try
         {
-            inputStream = new FileInputStream(inputFile);
+            inputStream = new MappedInputStream(inputFile);
         }
         catch(FileNotFoundException e)
         {
             exitError("File not found: " + inputFile);
         }
+        catch(IOException e)
+        {
+            exitError("Error opening input file: " + inputFile);
+        }
         if(outputFile != null)
         {
             try
             {
-                outputStream = new PrintStream(new FileOutputStream(outputFile));
+                FileOutputStream fos = new FileOutputStream(outputFile);
+                outputChannel = fos.getChannel();
+                outputStream = new PrintStream(fos);
             }
             catch(IOException e)
             {
@@ -111,32 +264,77 @@ public class Main
         }
         else
         {
+            // not closed: it is stdout's descriptor
+            outputChannel = new FileOutputStream(FileDescriptor.out).getChannel();
             outputStream = System.out;
         }
     }
 
+    /**
+     * Scan the input and write its tokens, one per line, as the scanner
+     * produces them; report the number of tokens per second on stderr.
+     */
+    public void scanPhase()
+    {
+        try
+        {
+            beginPhase("scan");
+            long start = System.nanoTime();
+            TokenWriter tokens = new TokenWriter(outputStream);
+            new MJScannerParseTable(new MJScanner(errorMsg, tokens)).parse(inputStream,0,false);
+            tokens.close();
+            long nanos = System.nanoTime() - start;
+            endPhase("scan");
+            phaseStats.count("tokens", tokens.tokens());
+            System.err.printf("%d tokens in %.3f ms (%.0f tokens/s)%n", tokens.tokens(),
+                              nanos / 1e6, tokens.tokens() / (nanos / 1e9));
+        }
+        catch(IOException iox)
+        {
+            exitError("Error writing tokens.");
+        }
+    }
+
     private AstNode parseFile()
     {
         try
         {
+            // with -skim, parse only the declarations if we can; method
+            // bodies are parsed when something looks at them
+            if(skim)
+            {
+                beginPhase("skim");
+                skimmer = new Skimmer(((MappedInputStream)inputStream).buffer(), inputFile, errorMsg,
+                                      nodeIds);
+                Program prog = skimmer.skim();
+                endPhase("skim");
+                if(prog != null) return prog;
+                skimmer = null;
+            }
+
             // get a big slab of bits
             // lex the input and write it to the slab,
             // then we'll feed that slab to the parser.
             // compress the errors we get in the scanner into a single error.
             ByteArrayOutputStream os = new ByteArrayOutputStream(1000000);
             ErrorMsg scanErr = new ErrorMsg(inputFile);
+            beginPhase("scan");
             new MJScannerParseTable(new MJScanner(scanErr, os)).parse(inputStream,0,false);
+            scanErr.closeBurst("scan");
+            phaseStats.end(inputFile, scanErr.messageCount());
 
             if(scanErr.anyErrors)
             {
                 errorMsg.error(-1, "Error detected during scanning");
             }
             os.close();
-            ByteArrayInputStream is = new ByteArrayInputStream(os.toByteArray());
+            InputStream is = new MappedInputStream(os.toByteArray());
 
             // Make the parser and get the AST
+            beginPhase("parse");
             MJGrammar mj = new MJGrammar(errorMsg);
             new MJGrammarParseTable(mj).parse(is,0,false);
+            endPhase("parse");
             is.close();
             return mj.parseResult();
         }
@@ -147,9 +345,81 @@ public class Main
         }
     }
 
+    /**
+     * Compact the AST, when -compact is given, and report its memory
+     * use before and after on stderr, when -memstats is given.
+     */
+    public void compactPhase(AstNode ast)
+    {
+        if(ast == null || !(memStats || compact)) return;
+        if(memStats)
+        {
+            new MemoryCensus().take(ast).print(System.err, "memory (after parsing):");
+            System.err.printf("  heap in use: %d bytes%n", heapInUse());
+        }
+        if(compact)
+        {
+            beginPhase("compact");
+            compact(ast);
+            endPhase("compact");
+            if(memStats)
+            {
+                new MemoryCensus().take(ast).print(System.err, "memory (after compaction):");
+                System.err.printf("  heap in use: %d bytes%n", heapInUse());
+            }
+        }
+    }
+
+    // run the compaction pass; its tables are garbage once this returns
+    private void compact(AstNode ast)
+    {
+        AstCompactor compactor = new AstCompactor();
+        compactor.compact(ast);
+        phaseStats.count("listsTrimmed", compactor.getListsTrimmed());
+        phaseStats.count("stringsShared", compactor.getStringsShared());
+    }
+
+    // the heap in use after full collections; one is not always enough
+    // to free everything, so collect until the figure stops falling
+    private static long heapInUse()
+    {
+        Runtime rt = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for(int i = 0; i < 4; i++)
+        {
+            System.gc();
+            long now = rt.totalMemory() - rt.freeMemory();
+            if(now >= used) break;
+            used = now;
+        }
+        return used;
+    }
+
+    /**
+     * Build the source-position index, when -positions is given.
+     */
+    public void positionPhase(AstNode ast)
+    {
+        if(buildPositions && ast != null)
+        {
+            beginPhase("positions");
+            positions = PositionIndex.build(ast);
+            endPhase("positions");
+            phaseStats.count("positionNodes", positions.size());
+            phaseStats.count("positionSegments", positions.segments());
+            phaseStats.count("positionBytes", positions.footprintBytes());
+        }
+    }
+
     public HashMap<String,ClassDecl> semanticPhase1(AstNode ast)
     {
-        if(!errorMsg.anyErrors && ast != null)
+        if(!errorMsg.anyErrors && ast != null && parallel)
+        {
+            ParallelSem1 par = new ParallelSem1(errorMsg, ForkJoinPool.commonPool());
+            par.build((Program)ast);
+            return par.getEnv();
+        }
+        else if(!errorMsg.anyErrors && ast != null)
         {
             Sem1Visitor vis = new Sem1Visitor(errorMsg);
             ast.accept(vis);
@@ -165,18 +435,163 @@ public class Main
     {
         if(!errorMsg.anyErrors && ast != null)
         {
-            ast.accept(new Sem2Visitor(env, errorMsg));
+            Sem2Visitor vis = new Sem2Visitor(env, errorMsg);
+            ast.accept(vis);
+            hierarchy = vis.getHierarchy();
+            if(!errorMsg.anyErrors)
+            {
+                new MethodTableBuilder(errorMsg).build(env);
+            }
+        }
+    }
+
+    /**
+     * Remove the classes and methods that cannot be reached from the
+     * main statement, warning about each unused class.
+     */
+    public void prunePhase(AstNode ast, HashMap<String,ClassDecl> env)
+    {
+        if(!errorMsg.anyErrors && ast != null)
+        {
+            Reachability reach = new Reachability(env, errorMsg);
+            reach.prune((Program)ast);
+            phaseStats.count("classesPruned", reach.getClassesPruned());
+            phaseStats.count("methodsPruned", reach.getMethodsPruned());
         }
     }
 
     public void semanticPhase3(AstNode ast, HashMap<String,ClassDecl> env)
+    {
+        // a skimmed file is only checked down to its declarations, unless
+        // a query needs the bodies bound (see bodiesUnchecked)
+        if(bodiesUnchecked()) return;
+        XrefIndex.Builder refs = buildXref ? new XrefIndex.Builder() : null;
+        if(!errorMsg.anyErrors && ast != null && parallel)
+        {
+            ParallelSem3 par = new ParallelSem3(env, errorMsg, ForkJoinPool.commonPool());
+            par.setXref(refs);
+            par.bind((Program)ast);
+            phaseStats.count("peakLocalEnv", par.getPeakLocalEnvSize());
+        }
+        else if(!errorMsg.anyErrors && ast != null)
+        {
+            Sem3Visitor vis = new Sem3Visitor(env, errorMsg);
+            vis.setXref(refs);
+            ast.accept(vis);
+            phaseStats.count("peakLocalEnv", vis.getPeakLocalEnvSize());
+        }
+        if(refs != null)
+        {
+            xref = refs.build(ast, env.values());
+            phaseStats.count("xrefRefs", xref.size());
+            phaseStats.count("xrefBytes", xref.footprintBytes());
+        }
+    }
+
+    /**
+     * With -stream, bind each class in turn, print it if asked, and let
+     * go of its method bodies before going on to the next one, so that
+     * the bodies of only one class are in memory at a time.  This takes
+     * the place of Sem3 and of displaying the AST.
+     *
+     * Every body is parsed, so all syntax errors are reported.  As with
+     * Sem3, nothing is bound once there are errors other than its own:
+     * a class is bound only if the declarations were fine and no body
+     * parsed so far, its own included, had a syntax error.
+     */
+    public void streamPhase(AstNode ast, HashMap<String,ClassDecl> env)
+    {
+        if(ast == null) return;
+        Program prog = (Program)ast;
+        boolean bind = !errorMsg.anyErrors;
+        Sem3Visitor sem3 = new Sem3Visitor(env, errorMsg);
+        PrettyPrintVisitor pp = null;
+        if(mode == PRETTY_PRINT)
+        {
+            pp = new PrettyPrintVisitor(true, false, outputStream);
+        }
+        else if(mode == VERBOSE_PRETTY_PRINT)
+        {
+            pp = new PrettyPrintVisitor(true, false, true, outputStream);
+        }
+
+        for(ClassDecl c : prog.classDecls)
+        {
+            int errors = errorMsg.errorCount();
+            for(Decl d : c.decls)
+            {
+                if(d instanceof MethodDecl m) m.materialize();
+            }
+            bind &= errorMsg.errorCount() == errors;
+            if(bind) c.accept(sem3);
+            if(pp != null) pp.print(c);
+            if(skimmer != null) skimmer.release(c);
+        }
+        if(bind)
+        {
+            sem3.bind(prog.mainStmt);
+            phaseStats.count("peakLocalEnv", sem3.getPeakLocalEnvSize());
+        }
+        if(pp != null) pp.printEpilogue(prog);
+    }
+
+    /**
+     * Compute field offsets and field counts for every class.
+     */
+    public void layoutPhase(AstNode ast, HashMap<String,ClassDecl> env)
     {
         if(!errorMsg.anyErrors && ast != null)
         {
-            ast.accept(new Sem3Visitor(env, errorMsg));
+            LayoutBuilder builder = new LayoutBuilder(parallel ? ForkJoinPool.commonPool() : null);
+            builder.build(env);
+            fieldOffsets = builder.getOffsets();
         }
     }
 
+    /**
+     * @return the field offsets computed by the layout phase, or null if
+     *         it did not run
+     */
+    public IntNodeTable getFieldOffsets()
+    {
+        return fieldOffsets;
+    }
+
+    /**
+     * @return the allocator that numbered this compilation's nodes
+     */
+    public NodeIds getNodeIds()
+    {
+        return nodeIds;
+    }
+
+    /**
+     * @return the class hierarchy index built in phase 2, or null if
+     *         phase 2 did not run
+     */
+    public ClassHierarchy getHierarchy()
+    {
+        return hierarchy;
+    }
+
+    /**
+     * @return the cross-reference index built during Sem3 when -xref
+     *         is given, otherwise null
+     */
+    public XrefIndex getXref()
+    {
+        return xref;
+    }
+
+    /**
+     * @return the source-position index built after parsing when
+     *         -positions is given, otherwise null
+     */
+    public PositionIndex getPositions()
+    {
+        return positions;
+    }
+
     public void closeFiles()
     {
         try
@@ -192,8 +607,27 @@ public class Main
 
     public void printSummaryMessage()
     {
-        errorMsg.printMessages();
-        if(errorMsg.anyErrors)
+        if(diagnosticFormat < 0)
+        {
+            errorMsg.printMessages();
+        }
+        else
+        {
+            try
+            {
+                errorMsg.writeMessages(new DiagnosticWriter(System.out, diagnosticFormat));
+            }
+            catch(IOException iox)
+            {
+                exitError("Error writing diagnostics.");
+            }
+        }
+        if(bodiesUnchecked())
+        {
+            System.err.println("Declarations checked for "+inputFile+
+                               "; method bodies were not checked.");
+        }
+        else if(errorMsg.anyErrors)
         {
             System.err.println("Compilation failed for "+inputFile+".");
         }
@@ -203,6 +637,16 @@ public class Main
         }
     }
 
+    // -skim on its own is for queries that need only the declarations,
+    // such as checking inheritance.  The bodies are never bound, and
+    // those that are not displayed are never even parsed, so the file
+    // gets its messages but no verdict either way.  -stream and -xref
+    // bind every body, so they check the whole file.
+    private boolean bodiesUnchecked()
+    {
+        return skimmer != null && !stream && !buildXref;
+    }
+
     public void displayAst(AstNode ast)
     {
         if(ast == null) return;
@@ -210,13 +654,23 @@ public class Main
         {
             case SILENT: break;
             case PRETTY_PRINT: 
+                if(parallel) { prettyPrintParallel((Program)ast, false); break; }
                 ast.accept(new PrettyPrintVisitor(true, false, outputStream));
                 break;
             case VERBOSE_PRETTY_PRINT: 
+                if(parallel) { prettyPrintParallel((Program)ast, true); break; }
                 ast.accept(new PrettyPrintVisitor(true, false, true, outputStream));
                 break;
             case PRINT: 
-                ast.accept(new TreeDrawerVisitor(outputStream));
+                TreeDrawerVisitor drawer = new TreeDrawerVisitor(outputStream);
+                drawer.setMaxDepth(drawDepth);
+                drawer.setListCap(drawListCap);
+                drawer.setSelect(drawSelect);
+                ast.accept(drawer);
+                if(drawSelect != null && drawer.getSelected() == 0)
+                {
+                    System.err.println("No class or method named " + drawSelect + ".");
+                }
                 break;
             case GEN_AST: 
                 System.out.println(ast.accept(new ASTGenVisitor()));
@@ -224,6 +678,82 @@ public class Main
         }
     }
 
+    /**
+     * Pretty-print each class into its own buffer on the common pool,
+     * then write the buffers in order with gathering writes.
+     */
+    private void prettyPrintParallel(Program prog, boolean verbose)
+    {
+        ParallelPrettyPrinter pp =
+            new ParallelPrettyPrinter(true, false, verbose, outputStream.charset(),
+                                      ForkJoinPool.commonPool());
+        pp.render(prog);
+        phaseStats.count("printedBytes", pp.size());
+        try
+        {
+            outputStream.flush();
+            pp.writeTo(outputChannel);
+        }
+        catch(IOException iox)
+        {
+            exitError("Error writing output.");
+        }
+    }
+
+    private void beginPhase(String name)
+    {
+        phaseStats.begin(name);
+    }
+
+    private void endPhase(String name)
+    {
+        errorMsg.closeBurst(name);
+        phaseStats.end(inputFile, errorMsg.messageCount());
+    }
+
+    /**
+     * Report the statistics gathered for the -stats flag on stderr.
+     */
+    public void printStats(AstNode ast, HashMap<String,ClassDecl> env)
+    {
+        if(!stats) return;
+        if(skimmer != null)
+        {
+            phaseStats.count("bodiesSkimmed", skimmer.bodies());
+            phaseStats.count("bodiesParsed", skimmer.bodiesParsed());
+        }
+        // counting the nodes of a skimmed file would parse all its bodies
+        if(ast != null && skimmer == null)
+        {
+            NodeCountVisitor vis = new NodeCountVisitor();
+            vis.walk(ast);
+            phaseStats.count("nodes", vis.getTotal());
+            phaseStats.nodeCounts(vis.getCounts());
+        }
+        if(env != null)
+        {
+            int methods = 0;
+            int fields = 0;
+            for(ClassDecl c : env.values())
+            {
+                methods += c.methodEnv.size();
+                fields += c.fieldEnv.size();
+            }
+            phaseStats.count("classes", env.size());
+            phaseStats.count("methods", methods);
+            phaseStats.count("fields", fields);
+        }
+        phaseStats.count("diagnostics", errorMsg.messageCount());
+        if(statsJson)
+        {
+            phaseStats.printJson(System.err);
+        }
+        else
+        {
+            phaseStats.printText(System.err);
+        }
+    }
+
     public static void exitError(String msg)
     {
         System.err.println(msg);
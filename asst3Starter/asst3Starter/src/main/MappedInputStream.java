@@ -0,0 +1,105 @@
+package main;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An InputStream over a memory-mapped source file.
+ * The scanner pulls its input one byte at a time, which on a plain
+ * FileInputStream costs one read system call per character.  Mapping
+ * the file once turns every one of those reads into a buffer access.
+ */
+public class MappedInputStream extends InputStream
+{
+    private ByteBuffer buf;
+
+    /**
+     * Map the given file for reading.
+     *
+     * @param fileName the file to map
+     * @throws FileNotFoundException if the file does not exist
+     * @throws IOException if the file cannot be mapped
+     */
+    public MappedInputStream(String fileName) throws IOException
+    {
+        try(FileChannel ch = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ))
+        {
+            long size = ch.size();
+            if(size > Integer.MAX_VALUE)
+            {
+                throw new IOException("Input file too large to map: " + fileName);
+            }
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        catch(NoSuchFileException e)
+        {
+            throw new FileNotFoundException(fileName);
+        }
+    }
+
+    /**
+     * Wrap bytes that are already in memory.
+     *
+     * @param bytes the input bytes
+     */
+    public MappedInputStream(byte[] bytes)
+    {
+        buf = ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * @return a read-only view of the whole input, independent of how
+     *         much of it has been consumed through the stream.
+     */
+    public ByteBuffer buffer()
+    {
+        return buf.asReadOnlyBuffer().rewind();
+    }
+
+    @Override
+    public int read()
+    {
+        return buf.hasRemaining() ? buf.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len)
+    {
+        if(len == 0)
+        {
+            return 0;
+        }
+        if(!buf.hasRemaining())
+        {
+            return -1;
+        }
+        len = Math.min(len, buf.remaining());
+        buf.get(b, off, len);
+        return len;
+    }
+
+    @Override
+    public long skip(long n)
+    {
+        int k = (int)Math.max(0, Math.min(n, buf.remaining()));
+        buf.position(buf.position() + k);
+        return k;
+    }
+
+    @Override
+    public int available()
+    {
+        return buf.remaining();
+    }
+
+    @Override
+    public void close()
+    {
+        // a mapping is released when it becomes unreachable
+        buf = ByteBuffer.allocate(0);
+    }
+}
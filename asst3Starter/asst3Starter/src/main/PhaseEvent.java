@@ -0,0 +1,29 @@
+package main;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event spanning one phase of a Main run.
+ * Committing a disabled event does nothing, so the event is always
+ * emitted; enable it in a recording with {@code minijava.Phase}.
+ */
+@Name("minijava.Phase")
+@Label("Compiler Phase")
+@Category({"MiniJava", "Compiler"})
+@Description("One phase of the MiniJava compiler")
+public class PhaseEvent extends Event
+{
+    @Label("Phase")
+    public String phase;
+
+    @Label("Source File")
+    public String file;
+
+    @Label("Diagnostics")
+    @Description("Number of messages registered by the end of the phase")
+    public int diagnostics;
+}
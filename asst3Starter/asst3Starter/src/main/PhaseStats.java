@@ -0,0 +1,214 @@
+package main;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collects the statistics reported by the -stats flag: wall time, CPU
+ * time and allocated bytes for each compiler phase, plus a set of named
+ * counters (node counts, environment sizes, diagnostics).
+ * When disabled, only the Flight Recorder PhaseEvents are emitted.
+ *
+ * CPU time and allocation are summed over every thread of the JVM, not
+ * just the one running the phase, so that what the fork-join pool does
+ * for a -parallel phase is counted.  The other threads of the JVM add a
+ * little noise, and a thread that ends during a phase is not counted.
+ */
+public class PhaseStats
+{
+    /**
+     * The measurements for one phase.
+     */
+    public static class Phase
+    {
+        public final String name;
+        public long wallNanos;
+        public long cpuNanos;
+        public long allocBytes;
+
+        Phase(String n)
+        {
+            name = n;
+        }
+    }
+
+    private final boolean enabled;
+    private final com.sun.management.ThreadMXBean threads;
+    private ArrayList<Phase> phases;
+    private LinkedHashMap<String,Long> counters;
+    private LinkedHashMap<String,Integer> nodeCounts;
+
+    // the phase currently being measured
+    private Phase current;
+    private PhaseEvent event;
+    private long wallStart;
+    private HashMap<Long,long[]> threadStart;
+
+    /**
+     * @param enabled whether anything should be measured
+     */
+    public PhaseStats(boolean enabled)
+    {
+        this.enabled = enabled;
+        java.lang.management.ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+        threads = mx instanceof com.sun.management.ThreadMXBean ?
+                  (com.sun.management.ThreadMXBean)mx : null;
+        phases = new ArrayList<Phase>();
+        counters = new LinkedHashMap<String,Long>();
+        nodeCounts = new LinkedHashMap<String,Integer>();
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Start measuring a phase.  Phases don't nest.
+     * A PhaseEvent is emitted for every phase whether or not the
+     * statistics themselves are enabled.
+     *
+     * @param name the phase name
+     */
+    public void begin(String name)
+    {
+        event = new PhaseEvent();
+        event.phase = name;
+        event.begin();
+        if(!enabled) return;
+        current = new Phase(name);
+        threadStart = threadTotals();
+        wallStart = System.nanoTime();
+    }
+
+    /**
+     * Stop measuring the phase started by the last call to begin.
+     *
+     * @param file the file being compiled
+     * @param diagnostics the number of messages registered so far
+     */
+    public void end(String file, int diagnostics)
+    {
+        if(event != null)
+        {
+            event.end();
+            if(event.shouldCommit())
+            {
+                event.file = file;
+                event.diagnostics = diagnostics;
+                event.commit();
+            }
+            event = null;
+        }
+        if(!enabled || current == null) return;
+        current.wallNanos = System.nanoTime() - wallStart;
+        for(Map.Entry<Long,long[]> e : threadTotals().entrySet())
+        {
+            long[] now = e.getValue();
+            long[] before = threadStart.get(e.getKey());
+            current.cpuNanos += now[0] - (before == null ? 0 : before[0]);
+            current.allocBytes += now[1] - (before == null ? 0 : before[1]);
+        }
+        threadStart = null;
+        phases.add(current);
+        current = null;
+    }
+
+    /**
+     * Record (or overwrite) a named counter.
+     */
+    public void count(String name, long value)
+    {
+        if(!enabled) return;
+        counters.put(name, value);
+    }
+
+    /**
+     * Record the number of nodes of each syntaxtree class.
+     */
+    public void nodeCounts(Map<String,Integer> counts)
+    {
+        if(!enabled) return;
+        nodeCounts.putAll(counts);
+    }
+
+    // the CPU time and allocated bytes of each live thread, by id
+    private HashMap<Long,long[]> threadTotals()
+    {
+        HashMap<Long,long[]> totals = new HashMap<Long,long[]>();
+        if(threads == null) return totals;
+        long[] ids = threads.getAllThreadIds();
+        long[] cpu = threads.isThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled() ?
+                     threads.getThreadCpuTime(ids) : new long[ids.length];
+        long[] alloc = threads.isThreadAllocatedMemorySupported() &&
+                       threads.isThreadAllocatedMemoryEnabled() ?
+                       threads.getThreadAllocatedBytes(ids) : new long[ids.length];
+        for(int i = 0; i < ids.length; i++)
+        {
+            // -1 for a thread that has ended since its id was read
+            if(cpu[i] < 0 || alloc[i] < 0) continue;
+            totals.put(ids[i], new long[] { cpu[i], alloc[i] });
+        }
+        return totals;
+    }
+
+    /**
+     * Print the statistics as a table.
+     */
+    public void printText(PrintStream out)
+    {
+        out.printf("%-22s %12s %12s %16s%n", "phase", "wall(ms)", "cpu(ms)", "alloc(bytes)");
+        for(Phase p : phases)
+        {
+            out.printf("%-22s %12.3f %12.3f %16d%n", p.name,
+                       p.wallNanos / 1e6, p.cpuNanos / 1e6, p.allocBytes);
+        }
+        for(Map.Entry<String,Long> e : counters.entrySet())
+        {
+            out.printf("%-22s %12d%n", e.getKey(), e.getValue());
+        }
+        out.println("nodes:");
+        for(Map.Entry<String,Integer> e : nodeCounts.entrySet())
+        {
+            out.printf("  %-20s %12d%n", e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * Print the statistics as a single JSON object.
+     */
+    public void printJson(PrintStream out)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"phases\":[");
+        String sep = "";
+        for(Phase p : phases)
+        {
+            sb.append(sep).append("{\"name\":\"").append(p.name)
+              .append("\",\"wallNanos\":").append(p.wallNanos)
+              .append(",\"cpuNanos\":").append(p.cpuNanos)
+              .append(",\"allocBytes\":").append(p.allocBytes).append('}');
+            sep = ",";
+        }
+        sb.append("],\"counters\":{");
+        sep = "";
+        for(Map.Entry<String,Long> e : counters.entrySet())
+        {
+            sb.append(sep).append('"').append(e.getKey()).append("\":").append(e.getValue());
+            sep = ",";
+        }
+        sb.append("},\"nodes\":{");
+        sep = "";
+        for(Map.Entry<String,Integer> e : nodeCounts.entrySet())
+        {
+            sb.append(sep).append('"').append(e.getKey()).append("\":").append(e.getValue());
+            sep = ",";
+        }
+        sb.append("}}");
+        out.println(sb);
+    }
+}
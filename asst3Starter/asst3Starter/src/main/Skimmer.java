@@ -0,0 +1,594 @@
+package main;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import parse.*;
+import syntaxtree.*;
+import visitor.Traversal;
+import errorMsg.ErrorMsg;
+
+/**
+ * Parses a file without its method bodies, for work that only needs the
+ * declarations.
+ *
+ * The source is skimmed once, matching braces, to find the characters
+ * of each method body.  Along the way the tokens outside the bodies are
+ * written out the way the scanner writes them, giving a skeleton of the
+ * file in which every body is empty ("{}", or "{return 0;}" for a method
+ * that returns a value) and white space and comments are left out.  The
+ * skeleton is parsed as usual, and its node positions are moved back to
+ * where they are in the file.  Each method gets a LazyBody that scans
+ * and parses the real body, on its own, the first time
+ * MethodDecl.materialize is called.
+ *
+ * Scanning costs about the same for every character, comments and
+ * white space included, and costs more than parsing, so the braces are
+ * matched over the characters of the file rather than over its tokens:
+ * that way the scanner only ever sees the bodies that are used.  The
+ * tokens that can appear in a declaration are few and simple, so they
+ * are written directly.
+ *
+ * If the skim runs into anything it does not expect (an unterminated
+ * comment or literal, unbalanced braces, anything outside a body that is
+ * not a declaration token, or any message from parsing the skeleton) it
+ * gives up, and the file should be parsed in full; that way every error
+ * outside a method body is reported exactly as before.
+ */
+public class Skimmer
+{
+    // what goes in front of a method's text to parse it as a file
+    private static final byte[] PREFIX = "class A{".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] SUFFIX = "}".getBytes(StandardCharsets.ISO_8859_1);
+
+    // tokens written for the skeleton, as the scanner would write them
+    private static final byte[] BRACE_OPEN = { '{' };
+    private static final byte[] BRACE_CLOSE = { '}' };
+    private static final byte[] RETURN_0 = { '#', 'r', 'e', ' ', ' ', ' ', (byte)('0' | 0x80), ';' };
+
+    // the scanner's codes for the keywords that can appear in a
+    // declaration, and the other words it reserves
+    private static final HashMap<String,String> KEYWORDS = new HashMap<String,String>();
+    private static final HashSet<String> RESERVED = new HashSet<String>();
+    static
+    {
+        KEYWORDS.put("class",   "#cl  ");
+        KEYWORDS.put("extends", "#ex    ");
+        KEYWORDS.put("public",  "#pu   ");
+        KEYWORDS.put("void",    "#vo ");
+        KEYWORDS.put("int",     "#it");
+        KEYWORDS.put("boolean", "#bo    ");
+        String[] reserved = {
+            "abstract", "assert", "break", "byte", "case", "catch", "char",
+            "const", "continue", "default", "do", "double", "else", "enum",
+            "false", "final", "finally", "float", "for", "goto", "if",
+            "implements", "import", "instanceof", "interface", "long",
+            "native", "new", "null", "package", "private", "protected",
+            "return", "short", "static", "strictfp", "super", "switch",
+            "synchronized", "this", "throw", "throws", "transient", "true",
+            "try", "volatile", "while" };
+        RESERVED.addAll(Arrays.asList(reserved));
+    }
+
+    // the text of the file, usually mapped rather than on the heap
+    private final ByteBuffer src;
+    private final int length;
+    private final String file;
+    private final ErrorMsg errorMsg;
+    private final NodeIds ids;
+
+    // for each method body: where its declaration starts, its closing
+    // brace, and whether it is declared void
+    private int[] heads;
+    private int[] closes;
+    private boolean[] voids;
+    private int bodies;
+
+    // the skeleton; its k-th token starts at runSkel[k], and came from
+    // file position runOrig[k]
+    private ByteArrayOutputStream skel;
+    private int skelEnd;
+    private int[] runSkel;
+    private int[] runOrig;
+    private int runs;
+
+    // the LazyBody of each method
+    private IdentityHashMap<MethodDecl,Body> lazy;
+
+    private AtomicInteger parsed;
+    private AtomicBoolean scanErrorReported;
+
+    // building the parse tables costs more than parsing a typical body,
+    // so each thread keeps one scanner and one parser for all of them
+    private final ThreadLocal<Parsers> parsers = new ThreadLocal<Parsers>()
+    {
+        protected Parsers initialValue()
+        {
+            return new Parsers(file);
+        }
+    };
+
+    /**
+     * @param source the text of the file
+     * @param file the name of the file, for messages
+     * @param errorMsg where the messages of parsing the bodies go
+     * @param ids the allocator the nodes of the bodies take their ids
+     *        from, whichever thread parses them
+     */
+    public Skimmer(ByteBuffer source, String file, ErrorMsg errorMsg, NodeIds ids)
+    {
+        src = source;
+        length = source.limit();
+        this.file = file;
+        this.errorMsg = errorMsg;
+        this.ids = ids;
+        heads = new int[64];
+        closes = new int[64];
+        voids = new boolean[64];
+        bodies = 0;
+        skel = new ByteArrayOutputStream(4096);
+        skelEnd = 0;
+        runSkel = new int[1024];
+        runOrig = new int[1024];
+        runs = 0;
+        lazy = new IdentityHashMap<MethodDecl,Body>();
+        parsed = new AtomicInteger();
+        scanErrorReported = new AtomicBoolean();
+    }
+
+    /**
+     * Parse the file with its method bodies left for later.  On success
+     * the newlines of the file have been registered with errorMsg, as
+     * the parser would have done.
+     *
+     * @return the AST, or null if the file should be parsed in full
+     */
+    public Program skim()
+    {
+        if(!tokenize()) return null;
+
+        // parse the skeleton, keeping its messages out of errorMsg
+        ErrorMsg parseErr = new ErrorMsg(file);
+        MJGrammar mj = new MJGrammar(parseErr);
+        new MJGrammarParseTable(mj).parse(new MappedInputStream(skel.toByteArray()),0,false);
+        Program prog = mj.parseResult();
+        if(prog == null || parseErr.messageCount() > 0) return null;
+
+        // the methods must be the bodies found, in order
+        ArrayList<MethodDecl> methods = new ArrayList<MethodDecl>(bodies);
+        for(ClassDecl c : prog.classDecls)
+        {
+            for(Decl d : c.decls)
+            {
+                if(d instanceof MethodDecl) methods.add((MethodDecl)d);
+            }
+        }
+        if(methods.size() != bodies) return null;
+        for(int k = 0; k < bodies; k++)
+        {
+            if(voids[k] != (methods.get(k) instanceof MethodDeclVoid)) return null;
+        }
+
+        new Traversal()
+        {
+            protected boolean enter(AstNode n)
+            {
+                if(n.pos >= 0) n.pos = toFile(n.pos);
+                return true;
+            }
+        }.walk(prog);
+        skel = null;
+        runSkel = null;
+        runOrig = null;
+        for(int k = 0; k < bodies; k++)
+        {
+            MethodDecl m = methods.get(k);
+            Body b = new Body(k, m);
+            m.lazyBody = b;
+            lazy.put(m, b);
+        }
+        for(int i = 0; i < length; i++)
+        {
+            if(src.get(i) == '\n') errorMsg.newline(i);
+        }
+        return prog;
+    }
+
+    /**
+     * Let go of the parsed bodies of a class's methods, so that they can
+     * be garbage collected.  A body that is used again is parsed again.
+     *
+     * @param c a class of the skimmed file
+     */
+    public void release(ClassDecl c)
+    {
+        for(Decl d : c.decls)
+        {
+            if(d instanceof MethodDecl m && m.lazyBody == null)
+            {
+                Body b = lazy.get(m);
+                if(b != null) b.restore(m);
+            }
+        }
+    }
+
+    /**
+     * @return the number of method bodies found
+     */
+    public int bodies()
+    {
+        return bodies;
+    }
+
+    /**
+     * @return the number of method bodies parsed so far
+     */
+    public int bodiesParsed()
+    {
+        return parsed.get();
+    }
+
+    // Skim the file, finding the method bodies (a '{' at class level,
+    // depth 1, opens one) and writing the tokens outside them to 'skel'.
+    // Returns false if the file is not well enough formed to tell where
+    // the bodies are, or has something outside them that is not a
+    // declaration token.
+    private boolean tokenize()
+    {
+        int depth = 0;
+        int head = 0;
+        boolean sawVoid = false;
+        int n = length;
+        int i = 0;
+        while(i < n)
+        {
+            int c = src.get(i);
+            if(c == '/' && i + 1 < n && src.get(i+1) == '/')
+            {
+                while(i < n && src.get(i) != '\n') i++;
+                continue;
+            }
+            if(c == '/' && i + 1 < n && src.get(i+1) == '*')
+            {
+                i += 2;
+                while(i + 1 < n && !(src.get(i) == '*' && src.get(i+1) == '/')) i++;
+                if(i + 1 >= n) return false;
+                i += 2;
+                continue;
+            }
+            if(depth >= 2)
+            {
+                // inside a body, only the braces matter
+                if(c == '"' || c == '\'')
+                {
+                    // a string or character literal, with escapes
+                    i++;
+                    while(i < n && src.get(i) != c && src.get(i) != '\n')
+                    {
+                        i += src.get(i) == '\\' ? 2 : 1;
+                    }
+                    if(i >= n || src.get(i) != c) return false;
+                }
+                else if(c == '{')
+                {
+                    depth++;
+                }
+                else if(c == '}' && --depth == 1)
+                {
+                    closes[bodies-1] = i;
+                    token(BRACE_CLOSE, i);
+                    head = i + 1;
+                    sawVoid = false;
+                }
+                i++;
+                continue;
+            }
+
+            if(c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f')
+            {
+                i++;
+            }
+            else if(isLetter(c))
+            {
+                int from = i;
+                while(i < n && (isLetter(src.get(i)) || src.get(i) >= '0' && src.get(i) <= '9'))
+                {
+                    i++;
+                }
+                if(!word(from, i)) return false;
+                if(i - from == 4 && src.get(from) == 'v' && src.get(from+1) == 'o' &&
+                   src.get(from+2) == 'i' && src.get(from+3) == 'd')
+                {
+                    sawVoid = true;
+                }
+            }
+            else if(c == '{')
+            {
+                token(BRACE_OPEN, i);
+                if(depth == 1)
+                {
+                    add(head, sawVoid);
+                    if(!sawVoid) token(RETURN_0, i);
+                }
+                else
+                {
+                    head = i + 1;
+                    sawVoid = false;
+                }
+                depth++;
+                i++;
+            }
+            else if(c == '}')
+            {
+                if(depth == 0) return false;
+                token(BRACE_CLOSE, i);
+                depth--;
+                i++;
+            }
+            else if(c == ';' || c == ',' || c == '(' || c == ')' || c == '[' || c == ']')
+            {
+                skel.write(c);
+                run(i);
+                i++;
+                if(c == ';' && depth == 1)
+                {
+                    head = i;
+                    sawVoid = false;
+                }
+            }
+            else
+            {
+                return false;
+            }
+        }
+        return depth == 0;
+    }
+
+    private static boolean isLetter(int c)
+    {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '_';
+    }
+
+    // Write an identifier or keyword as the scanner would: a keyword as
+    // '#' and two letters, padded to its length, an identifier with the
+    // high bit of its last character set.  Returns false for a word that
+    // cannot be part of a declaration.
+    private boolean word(int from, int to)
+    {
+        byte[] text = new byte[to - from];
+        src.get(from, text);
+        String w = new String(text, StandardCharsets.ISO_8859_1);
+        String code = KEYWORDS.get(w);
+        if(code != null)
+        {
+            token(code.getBytes(StandardCharsets.ISO_8859_1), from);
+            return true;
+        }
+        if(RESERVED.contains(w)) return false;
+        text[text.length - 1] = (byte)(text[text.length - 1] | 0x80);
+        skel.write(text, 0, text.length);
+        run(from);
+        return true;
+    }
+
+    private void token(byte[] text, int pos)
+    {
+        skel.write(text, 0, text.length);
+        run(pos);
+    }
+
+    // note that the token just written came from file position pos
+    private void run(int pos)
+    {
+        if(runs == runSkel.length)
+        {
+            runSkel = Arrays.copyOf(runSkel, 2 * runs);
+            runOrig = Arrays.copyOf(runOrig, 2 * runs);
+        }
+        runSkel[runs] = skelEnd;
+        runOrig[runs] = pos;
+        runs++;
+        skelEnd = skel.size();
+    }
+
+    private void add(int head, boolean isVoid)
+    {
+        if(bodies == heads.length)
+        {
+            heads = Arrays.copyOf(heads, 2 * bodies);
+            closes = Arrays.copyOf(closes, 2 * bodies);
+            voids = Arrays.copyOf(voids, 2 * bodies);
+        }
+        heads[bodies] = head;
+        voids[bodies] = isVoid;
+        bodies++;
+    }
+
+    // the file position of a skeleton position; the end of the skeleton
+    // is the end of the file
+    private int toFile(int pos)
+    {
+        if(pos >= skelEnd) return length + (pos - skelEnd);
+        int lo = 0;
+        int hi = runs - 1;
+        while(lo < hi)
+        {
+            int mid = (lo + hi + 1) >>> 1;
+            if(runSkel[mid] <= pos) lo = mid;
+            else hi = mid - 1;
+        }
+        return pos - runSkel[lo] + runOrig[lo];
+    }
+
+    /**
+     * The body of the k-th method: its declaration is parsed again, by
+     * itself, as the only member of a class.
+     */
+    private class Body implements LazyBody
+    {
+        private final int k;
+
+        // the method's empty body from the skeleton, put back by restore
+        private final StmtList emptyStmts;
+        private final Exp emptyRtnExp;
+
+        Body(int k, MethodDecl m)
+        {
+            this.k = k;
+            emptyStmts = m.stmts;
+            emptyRtnExp = m instanceof MethodDeclNonVoid ? ((MethodDeclNonVoid)m).rtnExp : null;
+        }
+
+        // drop the parsed body of m
+        void restore(MethodDecl m)
+        {
+            m.stmts = emptyStmts;
+            if(m instanceof MethodDeclNonVoid)
+            {
+                ((MethodDeclNonVoid)m).rtnExp = emptyRtnExp;
+            }
+            m.lazyBody = this;
+        }
+
+        // the body's nodes take their ids from the file's allocator,
+        // whichever thread parses it; under -parallel the order bodies
+        // are parsed in, and so their ids, vary from run to run
+        public void parse(MethodDecl m)
+        {
+            NodeIds outer = NodeIds.bind(ids);
+            try
+            {
+                parseBody(m);
+            }
+            finally
+            {
+                NodeIds.bind(outer);
+            }
+        }
+
+        private void parseBody(MethodDecl m)
+        {
+            int from = heads[k];
+            int to = closes[k] + 1;
+            byte[] piece = new byte[PREFIX.length + (to - from) + SUFFIX.length];
+            System.arraycopy(PREFIX, 0, piece, 0, PREFIX.length);
+            src.get(from, piece, PREFIX.length, to - from);
+            System.arraycopy(SUFFIX, 0, piece, piece.length - SUFFIX.length, SUFFIX.length);
+            final int shift = from - PREFIX.length;
+
+            Parsers p = parsers.get();
+            ErrorMsg scanErr = new ErrorMsg(file);
+            p.scanRelay.target = scanErr;
+            p.tokens.reset();
+            p.scanner.parse(new MappedInputStream(piece),0,false);
+            if(scanErr.anyErrors && scanErrorReported.compareAndSet(false, true))
+            {
+                errorMsg.error(-1, "Error detected during scanning");
+            }
+
+            ErrorMsg child = errorMsg.relocate(shift);
+            p.parseRelay.target = child;
+            p.parser.parse(new MappedInputStream(p.tokens.toByteArray()),0,false);
+            MethodDecl body = only(p.grammar.parseResult());
+            p.scanRelay.target = null;
+            p.parseRelay.target = null;
+            if(body != null)
+            {
+                Traversal relocate = new Traversal()
+                {
+                    protected boolean enter(AstNode n)
+                    {
+                        if(n.pos >= 0) n.pos += shift;
+                        return true;
+                    }
+                };
+                relocate.walk(body.stmts);
+                m.stmts = body.stmts;
+                if(m instanceof MethodDeclNonVoid && body instanceof MethodDeclNonVoid)
+                {
+                    Exp rtnExp = ((MethodDeclNonVoid)body).rtnExp;
+                    relocate.walk(rtnExp);
+                    ((MethodDeclNonVoid)m).rtnExp = rtnExp;
+                }
+            }
+            errorMsg.merge(child);
+            parsed.incrementAndGet();
+        }
+
+        // the one method of the one class parsed, or null
+        private MethodDecl only(Program p)
+        {
+            if(p == null || p.classDecls.size() != 1) return null;
+            ClassDecl c = p.classDecls.get(0);
+            if(c.decls.size() != 1 || !(c.decls.get(0) instanceof MethodDecl)) return null;
+            return (MethodDecl)c.decls.get(0);
+        }
+    }
+
+    /**
+     * A scanner and a parser that can be used over and over.  Their
+     * messages go through relays, which are pointed at the ErrorMsg
+     * for the body being parsed.
+     */
+    private static class Parsers
+    {
+        final Relay scanRelay;
+        final Relay parseRelay;
+        final ByteArrayOutputStream tokens;
+        final MJScannerParseTable scanner;
+        final MJGrammar grammar;
+        final MJGrammarParseTable parser;
+
+        Parsers(String file)
+        {
+            scanRelay = new Relay(file);
+            parseRelay = new Relay(file);
+            tokens = new ByteArrayOutputStream(4096);
+            scanner = new MJScannerParseTable(new MJScanner(scanRelay, tokens));
+            grammar = new MJGrammar(parseRelay);
+            parser = new MJGrammarParseTable(grammar);
+        }
+    }
+
+    /**
+     * An ErrorMsg that passes everything the scanner and the parser
+     * report on to another one.
+     */
+    private static class Relay extends ErrorMsg
+    {
+        ErrorMsg target;
+
+        Relay(String file)
+        {
+            super(file);
+        }
+
+        public void error(int pos, String s)
+        {
+            target.error(pos, s);
+        }
+
+        public void info(int pos, String s)
+        {
+            target.info(pos, s);
+        }
+
+        public String lineAndChar(int pos)
+        {
+            return target.lineAndChar(pos);
+        }
+
+        public void newline(int pos)
+        {
+            target.newline(pos);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package main;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The output stream the scanner writes its tokens to for -scan.  Rather
+ * than keeping the token stream, it decodes the tokens as their bytes
+ * arrive and writes one line per token, through a buffered writer:
+ * <pre>
+ *   line.char: kind text
+ * </pre>
+ * where kind is one of keyword, id, int, string, char or op, and line
+ * and char are computed as ErrorMsg does.
+ *
+ * The token stream has one byte per source character:
+ * <ul>
+ * <li>a keyword is '#' and a one- or two-letter code, padded with spaces
+ *     to the length of the keyword
+ * <li>an identifier or number is its text (a number in decimal), with
+ *     the high bit set on its last character
+ * <li>a string literal is '"' and its characters, with the high bit set
+ *     on the last one; the empty string is "@\""
+ * <li>a character literal is '\'' and the character itself
+ * <li>a two-character operator is '@' and a character standing for it
+ * <li>other punctuation, spaces and newlines are copied as they are;
+ *     comments become spaces
+ * </ul>
+ */
+public class TokenWriter extends OutputStream
+{
+    // the keyword for each code (the text after '#')
+    private static final String[][] KEYWORDS = {
+        {"ab", "abstract"}, {"as", "assert"}, {"bo", "boolean"}, {"br", "break"},
+        {"by", "byte"}, {"ce", "case"}, {"ca", "catch"}, {"ch", "char"},
+        {"cl", "class"}, {"ct", "const"}, {"co", "continue"}, {"de", "default"},
+        {"-", "do"}, {"do", "double"}, {"el", "else"}, {"en", "enum"},
+        {"ex", "extends"}, {"fa", "false"}, {"fi", "final"}, {"fy", "finally"},
+        {"fl", "float"}, {"fo", "for"}, {"go", "goto"}, {"+", "if"},
+        {"is", "implements"}, {"im", "import"}, {"in", "instanceof"}, {"it", "int"},
+        {"ie", "interface"}, {"lo", "long"}, {"na", "native"}, {"ne", "new"},
+        {"nu", "null"}, {"pa", "package"}, {"pr", "private"}, {"pd", "protected"},
+        {"pu", "public"}, {"re", "return"}, {"sh", "short"}, {"sc", "static"},
+        {"st", "strictfp"}, {"su", "super"}, {"sw", "switch"}, {"sy", "synchronized"},
+        {"th", "this"}, {"tw", "throw"}, {"ts", "throws"}, {"tt", "transient"},
+        {"tr", "true"}, {"ty", "try"}, {"vo", "void"}, {"ve", "volatile"},
+        {"wh", "while"},
+    };
+
+    // the keyword for each two-letter code, at index 128 * first + second,
+    // and for each one-letter code, at the index of the letter
+    private static final String[] KEYWORD = new String[128 * 128];
+    static
+    {
+        for(String[] k : KEYWORDS)
+        {
+            String code = k[0];
+            int i = code.length() == 1 ? code.charAt(0) : 128 * code.charAt(0) + code.charAt(1);
+            KEYWORD[i] = k[1];
+        }
+    }
+
+    // what the next byte is part of
+    private static final int NONE = 0;
+    private static final int KEYWORD1 = 1;  // after '#'
+    private static final int KEYWORD2 = 2;  // after '#' and a letter
+    private static final int OPERATOR = 3;  // after '@'
+    private static final int CHAR = 4;      // after '\''
+    private static final int STRING = 5;    // after '"' and maybe more
+    private static final int WORD = 6;      // within an identifier or number
+
+    private Writer out;
+    private int state;
+
+    // the position of the next byte, and of the last newline
+    private int pos;
+    private int linePos;
+    private int line;
+
+    // the current token: where it started, and its text so far
+    private int start;
+    private int startLine;
+    private int startPos;
+    private StringBuilder text;
+    private char first;
+
+    private long tokens;
+
+    /**
+     * @param os where to write the tokens; it is flushed but not closed
+     *           by close()
+     */
+    public TokenWriter(OutputStream os)
+    {
+        out = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.ISO_8859_1), 1 << 16);
+        state = NONE;
+        pos = 0;
+        linePos = 0;
+        line = 1;
+        text = new StringBuilder();
+        tokens = 0;
+    }
+
+    /**
+     * @return the number of tokens written so far
+     */
+    public long tokens()
+    {
+        return tokens;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+        for(int i = off; i < off + len; i++)
+        {
+            write(b[i]);
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException
+    {
+        int c = b & 0x7f;
+        boolean last = (b & 0x80) != 0;
+        switch(state)
+        {
+            case NONE:
+                begin();
+                if(last)
+                {
+                    text.append((char)c);
+                    word();
+                }
+                else if(c == '\n')
+                {
+                    line++;
+                    linePos = pos;
+                }
+                else if(c == ' ' || c == '\r' || c == '\t' || c == '\f')
+                {
+                }
+                else if(c == '#')  state = KEYWORD1;
+                else if(c == '@')  state = OPERATOR;
+                else if(c == '\'') state = CHAR;
+                else if(c == '"')  state = STRING;
+                else if(Character.isLetterOrDigit(c) || c == '_')
+                {
+                    text.append((char)c);
+                    state = WORD;
+                }
+                else
+                {
+                    emit("op", String.valueOf((char)c));
+                }
+                break;
+            case KEYWORD1:
+                if(c == '+' || c == '-')
+                {
+                    keyword(c);
+                }
+                else
+                {
+                    first = (char)c;
+                    state = KEYWORD2;
+                }
+                break;
+            case KEYWORD2:
+                keyword(128 * first + c);
+                break;
+            case OPERATOR:
+                if(c == '"')
+                {
+                    emit("string", "\"\"");
+                }
+                else
+                {
+                    emit("op", operator((char)c));
+                }
+                break;
+            case CHAR:
+                text.append('\'');
+                escape((char)c, '\'');
+                text.append('\'');
+                emit("char", text.toString());
+                break;
+            case STRING:
+                if(text.length() == 0) text.append('"');
+                escape((char)c, '"');
+                if(last)
+                {
+                    text.append('"');
+                    emit("string", text.toString());
+                }
+                break;
+            case WORD:
+                text.append((char)c);
+                if(last) word();
+                break;
+        }
+        pos++;
+    }
+
+    /**
+     * Flush the tokens written.
+     */
+    @Override
+    public void flush() throws IOException
+    {
+        out.flush();
+    }
+
+    /**
+     * Flush the tokens written; the underlying stream stays open.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        out.flush();
+    }
+
+    // note that a token may start at the current byte
+    private void begin()
+    {
+        start = pos;
+        startLine = line;
+        startPos = linePos;
+        text.setLength(0);
+    }
+
+    // finish an identifier or number
+    private void word() throws IOException
+    {
+        char c = text.charAt(0);
+        emit(c >= '0' && c <= '9' ? "int" : "id", text.toString());
+    }
+
+    // finish a keyword
+    private void keyword(int code) throws IOException
+    {
+        String k = code < KEYWORD.length ? KEYWORD[code] : null;
+        emit("keyword", k == null ? "?" : k);
+    }
+
+    // the operator a character after '@' stands for
+    private static String operator(char c)
+    {
+        switch(c)
+        {
+            case '<': return "<=";
+            case '>': return ">=";
+            case '=': return "==";
+            case '!': return "!=";
+            case '&': return "&&";
+            case '|': return "||";
+            case '+': return "++";
+            case '-': return "--";
+            default:  return "@" + c;
+        }
+    }
+
+    // add a character of a literal to the text, escaped
+    private void escape(char c, char quote)
+    {
+        switch(c)
+        {
+            case '\n': text.append("\\n"); break;
+            case '\t': text.append("\\t"); break;
+            case '\r': text.append("\\r"); break;
+            case '\f': text.append("\\f"); break;
+            case '\\': text.append("\\\\"); break;
+            default:
+                if(c == quote) text.append('\\');
+                text.append(c);
+        }
+    }
+
+    // write the current token
+    private void emit(String kind, String s) throws IOException
+    {
+        out.write(Integer.toString(startLine));
+        out.write('.');
+        out.write(Integer.toString(start - startPos));
+        out.write(": ");
+        out.write(kind);
+        out.write(' ');
+        out.write(s);
+        out.write('\n');
+        tokens++;
+        state = NONE;
+    }
+}
@@ -2,11 +2,15 @@ package syntaxtree;
 
 import visitor.Visitor;
 import visitor.Visitor2;
+import visitor.TypedVisitor;
+import visitor.VoidVisitor;
+import visitor.BoolVisitor;
+import visitor.IntVisitor;
 
 /**
  * a array-length expression, as in "a.length"
  */
-public class ArrayLength extends UnExp
+public final class ArrayLength extends UnExp
 {
 
     /**
@@ -31,4 +35,24 @@ public class ArrayLength extends UnExp
         if(!(n instanceof ArrayLength)) return null;
         return v.visit(this, (ArrayLength)n);
     }
+
+    public <R,A> R accept(TypedVisitor<R,A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> void accept(VoidVisitor<A> v, A arg)
+    {
+        v.visit(this, arg);
+    }
+
+    public <A> boolean accept(BoolVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> int accept(IntVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
 }
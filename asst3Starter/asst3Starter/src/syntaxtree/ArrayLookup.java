@@ -2,11 +2,15 @@ package syntaxtree;
 
 import visitor.Visitor;
 import visitor.Visitor2;
+import visitor.TypedVisitor;
+import visitor.VoidVisitor;
+import visitor.BoolVisitor;
+import visitor.IntVisitor;
 
 /**
  * an array-access expression, as in a[i]
  */
-public class ArrayLookup extends Exp
+public final class ArrayLookup extends Exp
 {
 
     // instance variables filled in by constructor
@@ -38,4 +42,24 @@ public class ArrayLookup extends Exp
         if(!(n instanceof ArrayLookup)) return null;
         return v.visit(this, (ArrayLookup)n);
     }
+
+    public <R,A> R accept(TypedVisitor<R,A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> void accept(VoidVisitor<A> v, A arg)
+    {
+        v.visit(this, arg);
+    }
+
+    public <A> boolean accept(BoolVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> int accept(IntVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
 }
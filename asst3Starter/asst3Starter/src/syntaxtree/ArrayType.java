@@ -2,11 +2,15 @@ package syntaxtree;
 
 import visitor.Visitor;
 import visitor.Visitor2;
+import visitor.TypedVisitor;
+import visitor.VoidVisitor;
+import visitor.BoolVisitor;
+import visitor.IntVisitor;
 
 /**
  * an array type
  */
-public class ArrayType extends Type
+public final class ArrayType extends Type
 {
     public Type baseType;
 
@@ -58,4 +62,24 @@ public class ArrayType extends Type
         if(!(n instanceof ArrayType)) return null;
         return v.visit(this, (ArrayType)n);
     }
+
+    public <R,A> R accept(TypedVisitor<R,A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> void accept(VoidVisitor<A> v, A arg)
+    {
+        v.visit(this, arg);
+    }
+
+    public <A> boolean accept(BoolVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> int accept(IntVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
 }
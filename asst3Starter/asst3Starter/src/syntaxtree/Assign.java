@@ -2,11 +2,15 @@ package syntaxtree;
 
 import visitor.Visitor;
 import visitor.Visitor2;
+import visitor.TypedVisitor;
+import visitor.VoidVisitor;
+import visitor.BoolVisitor;
+import visitor.IntVisitor;
 
 /**
  * an assignment statement
  */
-public class Assign extends Stmt
+public final class Assign extends Stmt
 {
 
     // instance variables filled in by constructor
@@ -38,5 +42,24 @@ public class Assign extends Stmt
         if(!(n instanceof Assign)) return null;
         return v.visit(this, (Assign)n);
     }
-}
 
+    public <R,A> R accept(TypedVisitor<R,A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> void accept(VoidVisitor<A> v, A arg)
+    {
+        v.visit(this, arg);
+    }
+
+    public <A> boolean accept(BoolVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> int accept(IntVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+}
@@ -5,12 +5,17 @@ import java.util.Vector;
 
 import visitor.Visitor;
 import visitor.Visitor2;
+import visitor.TypedVisitor;
+import visitor.VoidVisitor;
+import visitor.BoolVisitor;
+import visitor.IntVisitor;
 
 /**
  * a list of a given AST node type (abstract)
  * @param <T> the base type of the list
  */
-public abstract class AstList<T> extends Vector<T>
+public abstract sealed class AstList<T> extends Vector<T>
+    permits ClassDeclList, DeclList, ExpList, StmtList, VarDeclList
 {
 
     /**
@@ -21,6 +26,16 @@ public abstract class AstList<T> extends Vector<T>
         super();
     }
 
+    /**
+     * constructor -- initializes to an empty list with room for a given
+     * number of elements
+     * @param capacity the initial capacity
+     */
+    public AstList(int capacity)
+    {
+        super(capacity);
+    }
+
     /**
      * constructor -- initializes with values pass in parameter
      * @
@@ -65,5 +80,9 @@ public abstract class AstList<T> extends Vector<T>
 
     public abstract Object accept(Visitor v);
     public abstract Object accept(Visitor2 v, AstList<T> n);
+    public abstract <R,A> R accept(TypedVisitor<R,A> v, A arg);
+    public abstract <A> void accept(VoidVisitor<A> v, A arg);
+    public abstract <A> boolean accept(BoolVisitor<A> v, A arg);
+    public abstract <A> int accept(IntVisitor<A> v, A arg);
 
 }
@@ -2,20 +2,22 @@ package syntaxtree;
 
 import visitor.Visitor;
 import visitor.Visitor2;
+import visitor.TypedVisitor;
+import visitor.VoidVisitor;
+import visitor.BoolVisitor;
+import visitor.IntVisitor;
 import visitor.EqualVisitor;
 
 /**
  * an AST node (abstract)
  */
-public abstract class AstNode
+public abstract sealed class AstNode
+    permits Decl, Exp, Program, Stmt, Type
 {
 
     // instance variables filled in by constructor
     public int pos; // the character-position of this construct in the source file
-    public int uniqueId; // the object's unique ID
-
-    // static variable used to generate unique IDs
-    private static int uniqueIdCounter = 0;
+    public int uniqueId; // the object's unique ID (see NodeIds)
 
     /**
      * constructor
@@ -24,11 +26,15 @@ public abstract class AstNode
     public AstNode(int poss)
     {
         pos = poss;
-        uniqueId = uniqueIdCounter++;
+        uniqueId = NodeIds.current().next();
     }
 
     public abstract Object accept(Visitor v);
     public abstract Object accept(Visitor2 v, AstNode n);
+    public abstract <R,A> R accept(TypedVisitor<R,A> v, A arg);
+    public abstract <A> void accept(VoidVisitor<A> v, A arg);
+    public abstract <A> boolean accept(BoolVisitor<A> v, A arg);
+    public abstract <A> int accept(IntVisitor<A> v, A arg);
 
     public abstract String name();
 
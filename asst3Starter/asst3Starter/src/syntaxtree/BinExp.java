@@ -2,11 +2,17 @@ package syntaxtree;
 
 import visitor.Visitor;
 import visitor.Visitor2;
+import visitor.TypedVisitor;
+import visitor.VoidVisitor;
+import visitor.BoolVisitor;
+import visitor.IntVisitor;
 
 /**
  * a binary expression (abstract)
  */
-public abstract class BinExp extends Exp
+public abstract sealed class BinExp extends Exp
+    permits And, Divide, Equals, GreaterThan, LessThan, Minus, Or, Plus,
+            Remainder, Times
 {
 
     // instance variables filled in by constructor
@@ -37,4 +43,24 @@ public abstract class BinExp extends Exp
         if(!(n instanceof BinExp)) return null;
         return v.visit(this, (BinExp)n);
     }
+
+    public <R,A> R accept(TypedVisitor<R,A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> void accept(VoidVisitor<A> v, A arg)
+    {
+        v.visit(this, arg);
+    }
+
+    public <A> boolean accept(BoolVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> int accept(IntVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
 }
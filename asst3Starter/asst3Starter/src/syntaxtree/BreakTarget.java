@@ -2,17 +2,19 @@ package syntaxtree;
 
 import visitor.Visitor;
 import visitor.Visitor2;
+import visitor.TypedVisitor;
+import visitor.VoidVisitor;
+import visitor.BoolVisitor;
+import visitor.IntVisitor;
 
 /**
  * a statement that a break statement can break out of (e.g.,
  * 'switch' or 'while' (abstract)
  */
-public abstract class BreakTarget extends Stmt
+public abstract sealed class BreakTarget extends Stmt
+    permits Switch, While
 {
 
-    // instance variables filled in during later phases
-    public int stackHeight; // the height of the stack at the time the statement is reached
-
     /**
      * constructor
      * @param pos file position
@@ -20,7 +22,6 @@ public abstract class BreakTarget extends Stmt
     public BreakTarget(int pos)
     {
         super(pos);
-        stackHeight = Integer.MIN_VALUE;
     }
 
     public String name() {return "BreakTarget";}
@@ -34,4 +35,24 @@ public abstract class BreakTarget extends Stmt
         if(!(n instanceof BreakTarget)) return null;
         return v.visit(this, (BreakTarget)n);
     }
+
+    public <R,A> R accept(TypedVisitor<R,A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> void accept(VoidVisitor<A> v, A arg)
+    {
+        v.visit(this, arg);
+    }
+
+    public <A> boolean accept(BoolVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> int accept(IntVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
 }
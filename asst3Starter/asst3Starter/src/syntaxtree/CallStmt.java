@@ -2,11 +2,15 @@ package syntaxtree;
 
 import visitor.Visitor;
 import visitor.Visitor2;
+import visitor.TypedVisitor;
+import visitor.VoidVisitor;
+import visitor.BoolVisitor;
+import visitor.IntVisitor;
 
 /**
  * a statement that consists of a method call
  */
-public class CallStmt extends Stmt
+public final class CallStmt extends Stmt
 {
 
     // instance variables filled in by constructor
@@ -35,5 +39,24 @@ public class CallStmt extends Stmt
         if(!(n instanceof CallStmt)) return null;
         return v.visit(this, (CallStmt)n);
     }
-}
 
+    public <R,A> R accept(TypedVisitor<R,A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> void accept(VoidVisitor<A> v, A arg)
+    {
+        v.visit(this, arg);
+    }
+
+    public <A> boolean accept(BoolVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> int accept(IntVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+}
@@ -4,11 +4,15 @@ import java.util.HashMap;
 
 import visitor.Visitor;
 import visitor.Visitor2;
+import visitor.TypedVisitor;
+import visitor.VoidVisitor;
+import visitor.BoolVisitor;
+import visitor.IntVisitor;
 
 /**
  * a class declaration
  */
-public class ClassDecl extends Decl
+public final class ClassDecl extends Decl
 {
     // superclass name
     public String superName;
@@ -20,9 +24,9 @@ public class ClassDecl extends Decl
 
     // Filled in by phase 1
     // environment containing all fields used in this class.
-    public HashMap<String,FieldDecl> fieldEnv;
+    public Env<FieldDecl> fieldEnv;
     // environment containing all methods used in this class.
-    public HashMap<String,MethodDecl> methodEnv;
+    public Env<MethodDecl> methodEnv;
 
     // Filled in by phase 2
     // pointer to the actual superclass object.
@@ -30,7 +34,24 @@ public class ClassDecl extends Decl
     // pointers to all subclasses
     public ClassDeclList subclasses;
 
-    // Filled in by phase 5 (the code generator)
+    // Filled in after phase 2 (visitor.ClassHierarchy)
+    // number of superclasses above this class
+    public int depth;
+    // numbers on entry to and exit from a depth-first walk of the hierarchy
+    // (-1 if the class is on an inheritance cycle)
+    public int preOrder;
+    public int postOrder;
+    // a superclass further up (the class itself for a root), for
+    // finding the superclass at a given depth quickly
+    public ClassDecl jump;
+
+    // Filled in after phase 2 (visitor.MethodTableBuilder)
+    // the flattened method table, inherited methods included
+    public MethodDecl[] vtable;
+    // the slot in 'vtable' of each method name
+    public HashMap<String,Integer> vtableIndex;
+
+    // Filled in by phase 5 (visitor.LayoutBuilder)
     // number of primitive fields
     public int numDataFields;
     // number of object fields
@@ -50,9 +71,11 @@ public class ClassDecl extends Decl
         superName=asuperName;
         decls = aDeclList;
         superLink = null;
-        subclasses = new ClassDeclList();
-        fieldEnv = new HashMap<String,FieldDecl>();
-        methodEnv = new HashMap<String,MethodDecl>();
+        subclasses = new ClassDeclList(0);
+        preOrder = -1;
+        postOrder = -1;
+        fieldEnv = new Env<FieldDecl>();
+        methodEnv = new Env<MethodDecl>();
     }
 
     public String name() {return "ClassDecl";}
@@ -66,4 +89,24 @@ public class ClassDecl extends Decl
         if(!(n instanceof ClassDecl)) return null;
         return v.visit(this, (ClassDecl)n);
     }
+
+    public <R,A> R accept(TypedVisitor<R,A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> void accept(VoidVisitor<A> v, A arg)
+    {
+        v.visit(this, arg);
+    }
+
+    public <A> boolean accept(BoolVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> int accept(IntVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
 }
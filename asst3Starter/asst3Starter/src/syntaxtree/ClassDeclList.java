@@ -4,11 +4,15 @@ import java.util.List;
 
 import visitor.Visitor;
 import visitor.Visitor2;
+import visitor.TypedVisitor;
+import visitor.VoidVisitor;
+import visitor.BoolVisitor;
+import visitor.IntVisitor;
 
 /**
  * a list of class declaration
  */
-public class ClassDeclList extends AstList<ClassDecl>
+public final class ClassDeclList extends AstList<ClassDecl>
 {
 
     public ClassDeclList()
@@ -16,6 +20,11 @@ public class ClassDeclList extends AstList<ClassDecl>
         super();
     }
 
+    public ClassDeclList(int capacity)
+    {
+        super(capacity);
+    }
+
     public ClassDeclList(List<ClassDecl> lst)
     {
         super(lst);
@@ -33,4 +42,23 @@ public class ClassDeclList extends AstList<ClassDecl>
         return v.visit(this, (ClassDeclList)n);
     }
 
+    public <R,A> R accept(TypedVisitor<R,A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> void accept(VoidVisitor<A> v, A arg)
+    {
+        v.visit(this, arg);
+    }
+
+    public <A> boolean accept(BoolVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> int accept(IntVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
 }
@@ -2,11 +2,16 @@ package syntaxtree;
 
 import visitor.Visitor;
 import visitor.Visitor2;
+import visitor.TypedVisitor;
+import visitor.VoidVisitor;
+import visitor.BoolVisitor;
+import visitor.IntVisitor;
 
 /**
  * a declaration (abstract)
  */
-public abstract class Decl extends AstNode
+public abstract sealed class Decl extends AstNode
+    permits ClassDecl, MethodDecl, VarDecl
 {
 
     // instance variables filled in by constructor
@@ -37,4 +42,24 @@ public abstract class Decl extends AstNode
         if(!(n instanceof Decl)) return null;
         return v.visit(this, (Decl)n);
     }
+
+    public <R,A> R accept(TypedVisitor<R,A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> void accept(VoidVisitor<A> v, A arg)
+    {
+        v.visit(this, arg);
+    }
+
+    public <A> boolean accept(BoolVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> int accept(IntVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
 }
@@ -4,11 +4,15 @@ import java.util.List;
 
 import visitor.Visitor;
 import visitor.Visitor2;
+import visitor.TypedVisitor;
+import visitor.VoidVisitor;
+import visitor.BoolVisitor;
+import visitor.IntVisitor;
 
 /**
  * a list of declarations
  */
-public class DeclList extends AstList<Decl>
+public final class DeclList extends AstList<Decl>
 {
 
     public DeclList()
@@ -34,4 +38,23 @@ public class DeclList extends AstList<Decl>
         return v.visit(this, (DeclList)n);
     }
 
+    public <R,A> R accept(TypedVisitor<R,A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> void accept(VoidVisitor<A> v, A arg)
+    {
+        v.visit(this, arg);
+    }
+
+    public <A> boolean accept(BoolVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> int accept(IntVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
 }
@@ -0,0 +1,220 @@
+package syntaxtree;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A compact map from names to declarations, used for the field and
+ * method environments of a class.
+ *
+ * Most classes declare only a few fields and methods, so the entries are
+ * kept in one array of alternating keys and values that is searched
+ * linearly; past MAX_LINEAR entries the same array is used as an open
+ * addressing hash table with linear probing.  Nothing is allocated until
+ * the first put.  Entries cannot be removed.
+ *
+ * Like HashMap, keys are compared with equals, put replaces the value of
+ * an existing key, and the order of values() is unspecified.
+ *
+ * @param <V> the type of the values
+ */
+public final class Env<V> implements Iterable<V>
+{
+    // entries up to which the array is searched linearly
+    static final int MAX_LINEAR = 8;
+
+    // keys at even indices, their values at the following odd ones; null
+    // until the first put
+    private Object[] table;
+    private int size;
+    // whether 'table' is a hash table rather than a list of entries
+    private boolean hashed;
+
+    public Env()
+    {
+        table = null;
+        size = 0;
+        hashed = false;
+    }
+
+    /**
+     * @return the number of entries
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * @return whether there is an entry for key
+     */
+    public boolean containsKey(String key)
+    {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * @return the value for key, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public V get(String key)
+    {
+        int i = indexOf(key);
+        return i < 0 ? null : (V)table[i + 1];
+    }
+
+    /**
+     * Set the value for key.
+     *
+     * @return the previous value for key, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(String key, V value)
+    {
+        if(key == null) throw new NullPointerException("null key");
+        if(hashed)
+        {
+            int i = slot(table, key);
+            if(table[i] != null)
+            {
+                V old = (V)table[i + 1];
+                table[i + 1] = value;
+                return old;
+            }
+            if(4 * (size + 1) > table.length)
+            {
+                // keep the load (entries per slot) at most one half
+                rehash(2 * table.length);
+                i = slot(table, key);
+            }
+            table[i] = key;
+            table[i + 1] = value;
+            size++;
+            return null;
+        }
+
+        int i = indexOf(key);
+        if(i >= 0)
+        {
+            V old = (V)table[i + 1];
+            table[i + 1] = value;
+            return old;
+        }
+        if(size == MAX_LINEAR)
+        {
+            // 4 * MAX_LINEAR slots of two array elements each
+            rehash(8 * MAX_LINEAR);
+            return put(key, value);
+        }
+        if(table == null)
+        {
+            table = new Object[4];
+        }
+        else if(2 * size == table.length)
+        {
+            Object[] bigger = new Object[2 * table.length];
+            System.arraycopy(table, 0, bigger, 0, table.length);
+            table = bigger;
+        }
+        table[2 * size] = key;
+        table[2 * size + 1] = value;
+        size++;
+        return null;
+    }
+
+    /**
+     * @return the values, in no particular order
+     */
+    public Iterable<V> values()
+    {
+        return this;
+    }
+
+    public Iterator<V> iterator()
+    {
+        return new Iterator<V>()
+        {
+            // the next key index to look at
+            private int i = 0;
+
+            public boolean hasNext()
+            {
+                if(table == null) return false;
+                int limit = hashed ? table.length : 2 * size;
+                while(i < limit && table[i] == null)
+                {
+                    i += 2;
+                }
+                return i < limit;
+            }
+
+            @SuppressWarnings("unchecked")
+            public V next()
+            {
+                if(!hasNext()) throw new NoSuchElementException();
+                V v = (V)table[i + 1];
+                i += 2;
+                return v;
+            }
+        };
+    }
+
+    // the index of key's entry, or -1
+    private int indexOf(String key)
+    {
+        if(table == null) return -1;
+        if(hashed)
+        {
+            int i = slot(table, key);
+            return table[i] == null ? -1 : i;
+        }
+        // String caches its hash code, so comparing it first makes a
+        // mismatch cheap
+        int h = key.hashCode();
+        for(int i = 0; i < 2 * size; i += 2)
+        {
+            Object k = table[i];
+            if(k == key || k.hashCode() == h && k.equals(key)) return i;
+        }
+        return -1;
+    }
+
+    // the index of key's entry in a hash table, or of the empty slot
+    // where it belongs
+    private static int slot(Object[] t, String key)
+    {
+        int h = key.hashCode();
+        int mask = t.length / 2 - 1;
+        int s = (h ^ (h >>> 16)) & mask;
+        while(true)
+        {
+            Object k = t[2 * s];
+            if(k == null || k == key || k.equals(key)) return 2 * s;
+            s = (s + 1) & mask;
+        }
+    }
+
+    // move the entries into a hash table with 'length' array elements
+    private void rehash(int length)
+    {
+        Object[] old = table;
+        int limit = hashed ? old.length : 2 * size;
+        Object[] t = new Object[length];
+        for(int i = 0; i < limit; i += 2)
+        {
+            if(old[i] != null)
+            {
+                int j = slot(t, (String)old[i]);
+                t[j] = old[i];
+                t[j + 1] = old[i + 1];
+            }
+        }
+        table = t;
+        hashed = true;
+    }
+}
@@ -2,11 +2,18 @@ package syntaxtree;
 
 import visitor.Visitor;
 import visitor.Visitor2;
+import visitor.TypedVisitor;
+import visitor.VoidVisitor;
+import visitor.BoolVisitor;
+import visitor.IntVisitor;
 
 /**
  * an expression (abstract)
  */
-public abstract class Exp extends AstNode
+public abstract sealed class Exp extends AstNode
+    permits ArrayLookup, BinExp, Call, Cast, False, FieldAccess, IDExp,
+            InstanceOf, IntLit, NewArray, NewObject, Null, StringLit, Super,
+            This, True, UnExp
 {
 
     // instance variables filled in by constructor
@@ -35,4 +42,24 @@ public abstract class Exp extends AstNode
         if(!(n instanceof Exp)) return null;
         return v.visit(this, (Exp)n);
     }
+
+    public <R,A> R accept(TypedVisitor<R,A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> void accept(VoidVisitor<A> v, A arg)
+    {
+        v.visit(this, arg);
+    }
+
+    public <A> boolean accept(BoolVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> int accept(IntVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
 }
@@ -4,11 +4,15 @@ import java.util.List;
 
 import visitor.Visitor;
 import visitor.Visitor2;
+import visitor.TypedVisitor;
+import visitor.VoidVisitor;
+import visitor.BoolVisitor;
+import visitor.IntVisitor;
 
 /**
  * a list of expressions
  */
-public class ExpList extends AstList<Exp>
+public final class ExpList extends AstList<Exp>
 {
 
     public ExpList()
@@ -33,4 +37,24 @@ public class ExpList extends AstList<Exp>
         if(!(n instanceof ExpList)) return null;
         return v.visit(this, (ExpList)n);
     }
+
+    public <R,A> R accept(TypedVisitor<R,A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> void accept(VoidVisitor<A> v, A arg)
+    {
+        v.visit(this, arg);
+    }
+
+    public <A> boolean accept(BoolVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> int accept(IntVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
 }
@@ -0,0 +1,63 @@
+package syntaxtree;
+
+import java.util.Arrays;
+
+/**
+ * An int attribute of AST nodes, such as the result of a phase, kept in
+ * an array indexed by node id rather than in a field of every node.
+ * Nodes without a value read as the table's default.
+ *
+ * Values of different nodes may be put from several threads at once as
+ * long as the table does not have to grow, i.e. for nodes made before
+ * the table was.
+ */
+public final class IntNodeTable
+{
+    private int[] values;
+    private final int absent;
+
+    /**
+     * Make a table with room for every node made so far.
+     *
+     * @param ids the allocator of the current compilation
+     * @param absent the value of a node that has none
+     */
+    public IntNodeTable(NodeIds ids, int absent)
+    {
+        this.values = new int[Math.max(ids.count(), 16)];
+        this.absent = absent;
+        if(absent != 0) Arrays.fill(values, absent);
+    }
+
+    /**
+     * @return the value for n, or the default if it has none
+     */
+    public int get(AstNode n)
+    {
+        int id = n.uniqueId;
+        return id < values.length ? values[id] : absent;
+    }
+
+    /**
+     * Set the value for n.
+     */
+    public void put(AstNode n, int value)
+    {
+        int id = n.uniqueId;
+        if(id >= values.length)
+        {
+            int old = values.length;
+            values = Arrays.copyOf(values, Math.max(2 * old, id + 1));
+            if(absent != 0) Arrays.fill(values, old, values.length, absent);
+        }
+        values[id] = value;
+    }
+
+    /**
+     * @return an estimate of the heap used by the table, in bytes
+     */
+    public long footprintBytes()
+    {
+        return 16 + 16 + 4L * values.length;
+    }
+}
@@ -2,11 +2,16 @@ package syntaxtree;
 
 import visitor.Visitor;
 import visitor.Visitor2;
+import visitor.TypedVisitor;
+import visitor.VoidVisitor;
+import visitor.BoolVisitor;
+import visitor.IntVisitor;
 
 /**
  * a label in a 'switch' statement (abstract)
  */
-public abstract class Label extends Stmt
+public abstract sealed class Label extends Stmt
+    permits Case, Default
 {
 
     // instance variables filled in during later phases
@@ -43,5 +48,24 @@ public abstract class Label extends Stmt
         if(!(n instanceof Label)) return null;
         return v.visit(this, (Label)n);
     }
-}
 
+    public <R,A> R accept(TypedVisitor<R,A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> void accept(VoidVisitor<A> v, A arg)
+    {
+        v.visit(this, arg);
+    }
+
+    public <A> boolean accept(BoolVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> int accept(IntVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+}
@@ -0,0 +1,15 @@
+package syntaxtree;
+
+/**
+ * the body of a method that was skipped when the file was parsed; see
+ * MethodDecl.materialize
+ */
+public interface LazyBody
+{
+    /**
+     * Parse the body and fill in the method's statements (and, for a
+     * MethodDeclNonVoid, its return expression).
+     * @param m the method whose body this is
+     */
+    void parse(MethodDecl m);
+}
@@ -2,11 +2,15 @@ package syntaxtree;
 
 import visitor.Visitor;
 import visitor.Visitor2;
+import visitor.TypedVisitor;
+import visitor.VoidVisitor;
+import visitor.BoolVisitor;
+import visitor.IntVisitor;
 
 /**
  * a statement that consists of a local variable declaration
  */
-public class LocalDeclStmt extends Stmt
+public final class LocalDeclStmt extends Stmt
 {
 
     // instance variables filled in by constructor
@@ -35,5 +39,24 @@ public class LocalDeclStmt extends Stmt
         if(!(n instanceof LocalDeclStmt)) return null;
         return v.visit(this, (LocalDeclStmt)n);
     }
-}
 
+    public <R,A> R accept(TypedVisitor<R,A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> void accept(VoidVisitor<A> v, A arg)
+    {
+        v.visit(this, arg);
+    }
+
+    public <A> boolean accept(BoolVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> int accept(IntVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+}
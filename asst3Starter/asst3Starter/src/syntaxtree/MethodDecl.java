@@ -2,11 +2,16 @@ package syntaxtree;
 
 import visitor.Visitor;
 import visitor.Visitor2;
+import visitor.TypedVisitor;
+import visitor.VoidVisitor;
+import visitor.BoolVisitor;
+import visitor.IntVisitor;
 
 /**
  * a method declaration (abstract)
  */
-public abstract class MethodDecl extends Decl
+public abstract sealed class MethodDecl extends Decl
+    permits MethodDeclNonVoid, MethodDeclVoid
 {
     // instance variables filled in by constructor
     public VarDeclList params; // the method's formal parameters
@@ -18,6 +23,9 @@ public abstract class MethodDecl extends Decl
     public int vtableOffset; // this method's position in the v-table
     public ClassDecl classDecl; // the class in which the method is declared
 
+    // instance variables filled in by the parser when skimming (main.Skimmer)
+    public volatile LazyBody lazyBody; // the body, if it has not been parsed yet
+
     /**
      * constructor
      * @param pos file position
@@ -32,6 +40,26 @@ public abstract class MethodDecl extends Decl
         stmts=astmts;
         superMethod = null;
         vtableOffset = Integer.MIN_VALUE;
+        lazyBody = null;
+    }
+
+    /**
+     * Parse the method's body, if parsing it was put off; until then
+     * 'stmts' (and 'rtnExp') are placeholders.  Code that looks at the
+     * body calls this first.
+     */
+    public void materialize()
+    {
+        if(lazyBody == null) return;
+        synchronized(this)
+        {
+            LazyBody body = lazyBody;
+            if(body != null)
+            {
+                body.parse(this);
+                lazyBody = null;
+            }
+        }
     }
 
     public String name() {return "MethodDecl";}
@@ -46,4 +74,24 @@ public abstract class MethodDecl extends Decl
         if(!(n instanceof MethodDecl)) return null;
         return v.visit(this, (MethodDecl)n);
     }
+
+    public <R,A> R accept(TypedVisitor<R,A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> void accept(VoidVisitor<A> v, A arg)
+    {
+        v.visit(this, arg);
+    }
+
+    public <A> boolean accept(BoolVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> int accept(IntVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
 }
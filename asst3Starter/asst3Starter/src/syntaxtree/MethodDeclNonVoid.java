@@ -2,11 +2,15 @@ package syntaxtree;
 
 import visitor.Visitor;
 import visitor.Visitor2;
+import visitor.TypedVisitor;
+import visitor.VoidVisitor;
+import visitor.BoolVisitor;
+import visitor.IntVisitor;
 
 /**
  * a method declaration that returns a value
  */
-public class MethodDeclNonVoid extends MethodDecl
+public final class MethodDeclNonVoid extends MethodDecl
 {
 
     // instance variables filled in by constructor
@@ -42,4 +46,24 @@ public class MethodDeclNonVoid extends MethodDecl
         if(!(n instanceof MethodDeclNonVoid)) return null;
         return v.visit(this, (MethodDeclNonVoid)n);
     }
+
+    public <R,A> R accept(TypedVisitor<R,A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> void accept(VoidVisitor<A> v, A arg)
+    {
+        v.visit(this, arg);
+    }
+
+    public <A> boolean accept(BoolVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> int accept(IntVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
 }
@@ -2,11 +2,15 @@ package syntaxtree;
 
 import visitor.Visitor;
 import visitor.Visitor2;
+import visitor.TypedVisitor;
+import visitor.VoidVisitor;
+import visitor.BoolVisitor;
+import visitor.IntVisitor;
 
 /**
  * a method declaration that does not return a value
  */
-public class MethodDeclVoid extends MethodDecl
+public final class MethodDeclVoid extends MethodDecl
 {
 
     /**
@@ -33,4 +37,24 @@ public class MethodDeclVoid extends MethodDecl
         if(!(n instanceof MethodDeclVoid)) return null;
         return v.visit(this, (MethodDeclVoid)n);
     }
+
+    public <R,A> R accept(TypedVisitor<R,A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> void accept(VoidVisitor<A> v, A arg)
+    {
+        v.visit(this, arg);
+    }
+
+    public <A> boolean accept(BoolVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> int accept(IntVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
 }
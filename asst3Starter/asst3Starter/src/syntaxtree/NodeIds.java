@@ -0,0 +1,92 @@
+package syntaxtree;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Issues the unique ids of the AST nodes made during one compilation:
+ * 0, 1, 2, ... in the order the nodes are made, so that ids are dense
+ * and the same from run to run.  Dense ids let the results of a phase
+ * be kept outside the nodes, in arrays indexed by id (see IntNodeTable).
+ *
+ * Every node takes its id from the allocator bound to the thread that
+ * makes it.  Main starts a new one for each compilation and binds it to
+ * its own thread, so compilations running at the same time in one JVM
+ * number their nodes independently; code that makes a compilation's
+ * nodes on another thread binds that compilation's allocator there
+ * (see bind).  Ids may be taken from several threads at once.
+ *
+ * With -skim, a method body takes its ids when it is parsed, which is
+ * when something first looks at it, so its ids come after those of
+ * every declaration and depend on the order in which bodies are used.
+ * With -parallel that order depends on scheduling, so the ids of a
+ * skimmed file are not the same from run to run.
+ */
+public final class NodeIds
+{
+    // the allocator of each thread, if one is bound
+    private static final ThreadLocal<NodeIds> bound = new ThreadLocal<NodeIds>();
+
+    // for nodes made on a thread with no allocator bound
+    private static final NodeIds unbound = new NodeIds();
+
+    private final AtomicInteger next;
+
+    private NodeIds()
+    {
+        next = new AtomicInteger();
+    }
+
+    /**
+     * Start a compilation: the nodes this thread makes from now on are
+     * numbered from 0.
+     *
+     * @return the new allocator, bound to this thread
+     */
+    public static NodeIds begin()
+    {
+        NodeIds ids = new NodeIds();
+        bound.set(ids);
+        return ids;
+    }
+
+    /**
+     * Bind an allocator to this thread, so that the nodes made on it
+     * take their ids from it.
+     *
+     * @param ids the allocator, or null to unbind
+     * @return the allocator bound before, or null, to be bound again
+     *         when done
+     */
+    public static NodeIds bind(NodeIds ids)
+    {
+        NodeIds before = bound.get();
+        if(ids == null) bound.remove();
+        else            bound.set(ids);
+        return before;
+    }
+
+    /**
+     * @return the allocator bound to this thread, or if there is none,
+     *         one shared by all such threads
+     */
+    public static NodeIds current()
+    {
+        NodeIds ids = bound.get();
+        return ids != null ? ids : unbound;
+    }
+
+    /**
+     * @return the number of ids issued so far, which is one more than
+     *         the largest id
+     */
+    public int count()
+    {
+        return next.get();
+    }
+
+    // the id of a new node
+    int next()
+    {
+        return next.getAndIncrement();
+    }
+}
@@ -2,12 +2,16 @@ package syntaxtree;
 
 import visitor.Visitor;
 import visitor.Visitor2;
+import visitor.TypedVisitor;
+import visitor.VoidVisitor;
+import visitor.BoolVisitor;
+import visitor.IntVisitor;
 
 /**
  * declaration of a formal parameter in a method declaration's
  * parameter list
  */
-public class ParamDecl extends VarDecl
+public final class ParamDecl extends VarDecl
 {
 
     /**
@@ -33,4 +37,24 @@ public class ParamDecl extends VarDecl
         if(!(n instanceof ParamDecl)) return null;
         return v.visit(this, (ParamDecl)n);
     }
+
+    public <R,A> R accept(TypedVisitor<R,A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> void accept(VoidVisitor<A> v, A arg)
+    {
+        v.visit(this, arg);
+    }
+
+    public <A> boolean accept(BoolVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> int accept(IntVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
 }
@@ -2,11 +2,17 @@ package syntaxtree;
 
 import visitor.Visitor;
 import visitor.Visitor2;
+import visitor.TypedVisitor;
+import visitor.VoidVisitor;
+import visitor.BoolVisitor;
+import visitor.IntVisitor;
 
 /**
  * a statement (abstract)
  */
-public abstract class Stmt extends AstNode
+public abstract sealed class Stmt extends AstNode
+    permits Assign, Block, Break, BreakTarget, CallStmt, If, Label,
+            LocalDeclStmt
 {
 
     /**
@@ -30,4 +36,24 @@ public abstract class Stmt extends AstNode
         if(!(n instanceof Stmt)) return null;
         return v.visit(this, (Stmt)n);
     }
+
+    public <R,A> R accept(TypedVisitor<R,A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> void accept(VoidVisitor<A> v, A arg)
+    {
+        v.visit(this, arg);
+    }
+
+    public <A> boolean accept(BoolVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> int accept(IntVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
 }
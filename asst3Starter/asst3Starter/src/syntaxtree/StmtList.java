@@ -4,11 +4,15 @@ import java.util.List;
 
 import visitor.Visitor;
 import visitor.Visitor2;
+import visitor.TypedVisitor;
+import visitor.VoidVisitor;
+import visitor.BoolVisitor;
+import visitor.IntVisitor;
 
 /**
  * a list of statements
  */
-public class StmtList extends AstList<Stmt>
+public final class StmtList extends AstList<Stmt>
 {
 
     public StmtList()
@@ -33,4 +37,24 @@ public class StmtList extends AstList<Stmt>
         if(!(n instanceof StmtList)) return null;
         return v.visit(this, (StmtList)n);
     }
+
+    public <R,A> R accept(TypedVisitor<R,A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> void accept(VoidVisitor<A> v, A arg)
+    {
+        v.visit(this, arg);
+    }
+
+    public <A> boolean accept(BoolVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> int accept(IntVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
 }
@@ -2,17 +2,28 @@ package syntaxtree;
 
 import visitor.Visitor;
 import visitor.Visitor2;
+import visitor.TypedVisitor;
+import visitor.VoidVisitor;
+import visitor.BoolVisitor;
+import visitor.IntVisitor;
 
 /**
  * a 'switch' statement
  */
-public class Switch extends BreakTarget
+public final class Switch extends BreakTarget
 {
 
     // instance variables filled in by constructor
     public Exp exp; // the switch-expression
     public StmtList stmts; // the statements in the switch-statment's body
 
+    // instance variables filled in during later phases
+    public int[] keys; // the distinct case keys, in increasing order
+    public int minKey; // the smallest case key (0 if there are none)
+    public int maxKey; // the largest case key (0 if there are none)
+    public double keyDensity; // number of keys / size of the key range
+    public boolean tableSwitch; // whether a jump table beats a key lookup
+
     /**
      * constructor
      * @param pos file position
@@ -24,6 +35,7 @@ public class Switch extends BreakTarget
         super(pos);
         exp=aexp;
         stmts = astmts;
+        keys = null;
     }
 
     public String name() {return "Switch";}
@@ -38,5 +50,24 @@ public class Switch extends BreakTarget
         if(!(n instanceof Switch)) return null;
         return v.visit(this, (Switch)n);
     }
-}
 
+    public <R,A> R accept(TypedVisitor<R,A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> void accept(VoidVisitor<A> v, A arg)
+    {
+        v.visit(this, arg);
+    }
+
+    public <A> boolean accept(BoolVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> int accept(IntVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+}
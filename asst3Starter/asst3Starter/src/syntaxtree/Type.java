@@ -2,11 +2,17 @@ package syntaxtree;
 
 import visitor.Visitor;
 import visitor.Visitor2;
+import visitor.TypedVisitor;
+import visitor.VoidVisitor;
+import visitor.BoolVisitor;
+import visitor.IntVisitor;
 
 /**
  * a MiniJava type (abstract)
  */
-public abstract class Type extends AstNode
+public abstract sealed class Type extends AstNode
+    permits ArrayType, BoolType, ErrorType, IDType, IntType, NullType,
+            VoidType
 {
 
     /**
@@ -45,4 +51,24 @@ public abstract class Type extends AstNode
         if(!(n instanceof Type)) return null;
         return v.visit(this, (Type)n);
     }
+
+    public <R,A> R accept(TypedVisitor<R,A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> void accept(VoidVisitor<A> v, A arg)
+    {
+        v.visit(this, arg);
+    }
+
+    public <A> boolean accept(BoolVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> int accept(IntVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
 }
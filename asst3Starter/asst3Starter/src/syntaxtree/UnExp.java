@@ -2,11 +2,16 @@ package syntaxtree;
 
 import visitor.Visitor;
 import visitor.Visitor2;
+import visitor.TypedVisitor;
+import visitor.VoidVisitor;
+import visitor.BoolVisitor;
+import visitor.IntVisitor;
 
 /**
  * a unary expression (abstract)
  */
-public abstract class UnExp extends Exp
+public abstract sealed class UnExp extends Exp
+    permits ArrayLength, Not
 {
 
     // instance variables filled in by constructor
@@ -35,4 +40,24 @@ public abstract class UnExp extends Exp
         if(!(n instanceof UnExp)) return null;
         return v.visit(this, (UnExp)n);
     }
+
+    public <R,A> R accept(TypedVisitor<R,A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> void accept(VoidVisitor<A> v, A arg)
+    {
+        v.visit(this, arg);
+    }
+
+    public <A> boolean accept(BoolVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> int accept(IntVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
 }
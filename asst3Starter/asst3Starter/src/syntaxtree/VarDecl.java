@@ -2,19 +2,21 @@ package syntaxtree;
 
 import visitor.Visitor;
 import visitor.Visitor2;
+import visitor.TypedVisitor;
+import visitor.VoidVisitor;
+import visitor.BoolVisitor;
+import visitor.IntVisitor;
 
 /**
  * a variable declaration (abstract)
  */
-public abstract class VarDecl extends Decl
+public abstract sealed class VarDecl extends Decl
+    permits FieldDecl, LocalVarDecl, ParamDecl
 {
 
     // instance variables filled in by constructor
     public Type type; // the type of the variable being declared
 
-    // instance variables filled in during later phases
-    public int offset; // the variable's stack (or object) offset
-
     /**
      * constructor
      * @param pos file position
@@ -25,7 +27,6 @@ public abstract class VarDecl extends Decl
     {
         super(pos, aname);
         type=atype;
-        offset = Integer.MIN_VALUE;
     }
 
     public String name() {return "VarDecl";}
@@ -40,4 +41,24 @@ public abstract class VarDecl extends Decl
         if(!(n instanceof VarDecl)) return null;
         return v.visit(this, (VarDecl)n);
     }
+
+    public <R,A> R accept(TypedVisitor<R,A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> void accept(VoidVisitor<A> v, A arg)
+    {
+        v.visit(this, arg);
+    }
+
+    public <A> boolean accept(BoolVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
+
+    public <A> int accept(IntVisitor<A> v, A arg)
+    {
+        return v.visit(this, arg);
+    }
 }
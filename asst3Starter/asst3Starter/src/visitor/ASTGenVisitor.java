@@ -232,6 +232,7 @@ public class ASTGenVisitor extends Visitor
 
     public Object visit(MethodDeclVoid n)
     {
+        n.materialize();
         return "new MethodDeclVoid("+n.pos+","+
                "\""+n.name+"\","+
                n.params.accept(this)+","+
@@ -240,6 +241,7 @@ public class ASTGenVisitor extends Visitor
 
     public Object visit(MethodDeclNonVoid n)
     {
+        n.materialize();
         return "new MethodDeclNonVoid("+n.pos+","+
                n.rtnType.accept(this)+","+
                "\""+n.name+"\","+
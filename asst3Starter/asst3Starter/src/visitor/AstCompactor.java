@@ -0,0 +1,96 @@
+package visitor;
+
+import java.util.HashMap;
+import syntaxtree.*;
+
+// The purpose of this class is to shrink an AST once it has been parsed:
+// - every list's element array is trimmed to the list's size; the parser
+//   builds lists with room for ten elements or more, and most hold one
+//   or two
+// - the names and literals held by the nodes are deduplicated, so that
+//   all occurrences of a name share one String; the scanner makes a new
+//   String for every token
+// Neither changes what the tree means, so the pass may run at any time;
+// Main runs it right after parsing, for -compact.
+public class AstCompactor extends Traversal
+{
+    // the String kept for each name or literal
+    private HashMap<String,String> canon;
+
+    private int listsTrimmed;
+    private int stringsShared;
+
+    public AstCompactor()
+    {
+        canon = new HashMap<String,String>();
+        listsTrimmed = 0;
+        stringsShared = 0;
+    }
+
+    /**
+     * Compact a tree.
+     *
+     * @param root the root of the tree, usually the Program
+     */
+    public void compact(AstNode root)
+    {
+        walk(root);
+    }
+
+    /**
+     * @return the number of lists whose element arrays were trimmed
+     */
+    public int getListsTrimmed()
+    {
+        return listsTrimmed;
+    }
+
+    /**
+     * @return the number of Strings replaced by an equal one
+     */
+    public int getStringsShared()
+    {
+        return stringsShared;
+    }
+
+    @Override
+    protected boolean enter(AstNode n)
+    {
+        switch(n)
+        {
+            case ClassDecl c ->
+            {
+                c.name = share(c.name);
+                c.superName = share(c.superName);
+            }
+            case Decl d        -> d.name = share(d.name);
+            case IDExp e       -> e.name = share(e.name);
+            case IDType t      -> t.name = share(t.name);
+            case Call c        -> c.methName = share(c.methName);
+            case FieldAccess f -> f.varName = share(f.varName);
+            case StringLit s   -> s.str = share(s.str);
+            default            -> { }
+        }
+        return true;
+    }
+
+    @Override
+    protected void enterList(AstList lst)
+    {
+        if(lst.capacity() > lst.size())
+        {
+            lst.trimToSize();
+            listsTrimmed++;
+        }
+    }
+
+    // the String kept for s's contents
+    private String share(String s)
+    {
+        if(s == null) return null;
+        String kept = canon.putIfAbsent(s, s);
+        if(kept == null) return s;
+        if(kept != s) stringsShared++;
+        return kept;
+    }
+}
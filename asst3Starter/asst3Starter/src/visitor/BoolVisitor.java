@@ -0,0 +1,296 @@
+package visitor;
+
+import syntaxtree.*;
+
+/**
+ * A visitor whose visit methods take an argument of type A and return a
+ * boolean, without boxing it.  By default it walks the tree like Visitor
+ * and returns false.
+ */
+public class BoolVisitor<A>
+{
+    ////////////////////////////////////////////////////
+    // Abstract nodes
+    ////////////////////////////////////////////////////
+
+    public boolean visit(AstNode n, A arg)     { return false; }
+    public boolean visit(Decl n, A arg)        { return false; }
+    public boolean visit(Stmt n, A arg)        { return false; }
+    public boolean visit(Exp n, A arg)         { return false; }
+    public boolean visit(Type n, A arg)        { return false; }
+
+    public boolean visit(Label n, A arg)       { return false; }
+    public boolean visit(BreakTarget n, A arg) { return false; }
+
+
+    ////////////////////////////////////////////////////
+    // Program
+    ////////////////////////////////////////////////////
+
+    public boolean visit(Program n, A arg)
+    {
+        n.classDecls.accept(this, arg);
+        n.mainStmt.accept(this, arg);
+        return false;
+    }
+
+    ////////////////////////////////////////////////////
+    // Decls
+    ////////////////////////////////////////////////////
+
+    public boolean visit(ClassDecl n, A arg)
+    {
+        n.decls.accept(this, arg);
+        return false;
+    }
+
+    public boolean visit(MethodDecl n, A arg)
+    {
+        n.materialize();
+        n.params.accept(this, arg);
+        n.stmts.accept(this, arg);
+        return false;
+    }
+
+    public boolean visit(MethodDeclVoid n, A arg)
+    {
+        return visit((MethodDecl)n, arg);
+    }
+
+    public boolean visit(MethodDeclNonVoid n, A arg)
+    {
+        n.rtnType.accept(this, arg);
+        visit((MethodDecl)n, arg);
+        n.rtnExp.accept(this, arg);
+        return false;
+    }
+
+    public boolean visit(VarDecl n, A arg)
+    {
+        n.type.accept(this, arg);
+        return false;
+    }
+
+    public boolean visit(FieldDecl n, A arg)
+    {
+        return visit((VarDecl)n, arg);
+    }
+
+    public boolean visit(ParamDecl n, A arg)
+    {
+        return visit((VarDecl)n, arg);
+    }
+
+    public boolean visit(LocalVarDecl n, A arg)
+    {
+        n.initExp.accept(this, arg);
+        return visit((VarDecl)n, arg);
+    }
+
+    ////////////////////////////////////////////////////
+    // Stmts
+    ////////////////////////////////////////////////////
+
+    public boolean visit(Assign n, A arg)
+    {
+        n.lhs.accept(this, arg);
+        n.rhs.accept(this, arg);
+        return false;
+    }
+
+    public boolean visit(Block n, A arg)
+    {
+        n.stmts.accept(this, arg);
+        return false;
+    }
+
+    public boolean visit(CallStmt n, A arg)
+    {
+        n.callExp.accept(this, arg);
+        return false;
+    }
+
+    public boolean visit(LocalDeclStmt n, A arg)
+    {
+        n.localVarDecl.accept(this, arg);
+        return false;
+    }
+
+    public boolean visit(If n, A arg)
+    {
+        n.exp.accept(this, arg);
+        n.trueStmt.accept(this, arg);
+        n.falseStmt.accept(this, arg);
+        return false;
+    }
+
+    public boolean visit(While n, A arg)
+    {
+        n.exp.accept(this, arg);
+        n.body.accept(this, arg);
+        return false;
+    }
+
+    public boolean visit(Break n, A arg)
+    {
+        return false;
+    }
+
+    public boolean visit(Switch n, A arg)
+    {
+        n.exp.accept(this, arg);
+        n.stmts.accept(this, arg);
+        return false;
+    }
+
+    public boolean visit(Case n, A arg)
+    {
+        n.exp.accept(this, arg);
+        return false;
+    }
+
+    public boolean visit(Default n, A arg)
+    {
+        return false;
+    }
+
+    ////////////////////////////////////////////////////
+    // Expressions
+    ////////////////////////////////////////////////////
+
+
+    public boolean visit(ArrayLookup n, A arg)
+    {
+        n.arrExp.accept(this, arg);
+        n.idxExp.accept(this, arg);
+        return false;
+    }
+
+    public boolean visit(Cast n, A arg)
+    {
+        n.castType.accept(this, arg);
+        n.exp.accept(this, arg);
+        return false;
+    }
+
+    public boolean visit(Call n, A arg)
+    {
+        n.args.accept(this, arg);
+        n.obj.accept(this, arg);
+        return false;
+    }
+
+    public boolean visit(FieldAccess n, A arg)
+    {
+        n.exp.accept(this, arg);
+        return false;
+    }
+
+    public boolean visit(InstanceOf n, A arg)
+    {
+        n.exp.accept(this, arg);
+        n.checkType.accept(this, arg);
+        return false;
+    }
+
+    public boolean visit(NewArray n, A arg)
+    {
+        n.objType.accept(this, arg);
+        n.sizeExp.accept(this, arg);
+        return false;
+    }
+
+    public boolean visit(NewObject n, A arg)
+    {
+        n.objType.accept(this, arg);
+        return false;
+    }
+
+
+    ////////////////////////////////////////////////////
+    // Unary Expressions
+    ////////////////////////////////////////////////////
+
+    public boolean visit(UnExp n, A arg)
+    {
+        n.exp.accept(this, arg);
+        return false;
+    }
+
+    public boolean visit(Not n, A arg)         { return visit((UnExp)n, arg); }
+    public boolean visit(ArrayLength n, A arg) { return visit((UnExp)n, arg); }
+
+    ////////////////////////////////////////////////////
+    // Binary Expressions
+    ////////////////////////////////////////////////////
+
+    public boolean visit(BinExp n, A arg)
+    {
+        n.left.accept(this, arg);
+        n.right.accept(this, arg);
+        return false;
+    }
+
+    public boolean visit(And n, A arg)         { return visit((BinExp)n, arg); }
+    public boolean visit(Equals n, A arg)      { return visit((BinExp)n, arg); }
+    public boolean visit(LessThan n, A arg)    { return visit((BinExp)n, arg); }
+    public boolean visit(GreaterThan n, A arg) { return visit((BinExp)n, arg); }
+    public boolean visit(Minus n, A arg)       { return visit((BinExp)n, arg); }
+    public boolean visit(Or n, A arg)          { return visit((BinExp)n, arg); }
+    public boolean visit(Plus n, A arg)        { return visit((BinExp)n, arg); }
+    public boolean visit(Times n, A arg)       { return visit((BinExp)n, arg); }
+    public boolean visit(Divide n, A arg)      { return visit((BinExp)n, arg); }
+    public boolean visit(Remainder n, A arg)   { return visit((BinExp)n, arg); }
+
+    ////////////////////////////////////////////////////
+    // Leaf Expressions
+    ////////////////////////////////////////////////////
+
+    public boolean visit(False n, A arg)     { return false; }
+    public boolean visit(Null n, A arg)      { return false; }
+    public boolean visit(Super n, A arg)     { return false; }
+    public boolean visit(This n, A arg)      { return false; }
+    public boolean visit(True n, A arg)      { return false; }
+    public boolean visit(IDExp n, A arg)     { return false; }
+    public boolean visit(IntLit n, A arg)    { return false; }
+    public boolean visit(StringLit n, A arg) { return false; }
+
+    ////////////////////////////////////////////////////
+    // Types
+    ////////////////////////////////////////////////////
+
+    public boolean visit(ArrayType n, A arg)
+    {
+        n.baseType.accept(this, arg);
+        return false;
+    }
+
+    public boolean visit(BoolType n, A arg)  { return false; }
+    public boolean visit(IntType n, A arg)   { return false; }
+    public boolean visit(IDType n, A arg)    { return false; }
+    public boolean visit(VoidType n, A arg)  { return false; }
+    public boolean visit(NullType n, A arg)  { return false; }
+    public boolean visit(ErrorType n, A arg) { return false; }
+
+    ////////////////////////////////////////////////////
+    // Lists
+    ////////////////////////////////////////////////////
+
+    public boolean visit(AstList lst, A arg)
+    {
+        for(Object obj : lst)
+        {
+            if(obj != null && obj instanceof AstNode)
+            {
+                ((AstNode)obj).accept(this, arg);
+            }
+        }
+        return false;
+    }
+
+    public boolean visit(ClassDeclList n, A arg) { return visit((AstList)n, arg); }
+    public boolean visit(ExpList n, A arg)       { return visit((AstList)n, arg); }
+    public boolean visit(DeclList n, A arg)      { return visit((AstList)n, arg); }
+    public boolean visit(StmtList n, A arg)      { return visit((AstList)n, arg); }
+    public boolean visit(VarDeclList n, A arg)   { return visit((AstList)n, arg); }
+}
@@ -0,0 +1,32 @@
+package visitor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event spanning the Sem3 binding of one ClassDecl.
+ * Its duration, together with the allocation and GC events recorded on
+ * the same thread, shows which classes of a large program are hot.
+ */
+@Name("minijava.ClassBind")
+@Label("Class Binding")
+@Category({"MiniJava", "Compiler"})
+@Description("Name binding of the fields and methods of one class")
+public class ClassBindEvent extends Event
+{
+    @Label("Class")
+    public String className;
+
+    @Label("Methods")
+    public int methods;
+
+    @Label("Fields")
+    public int fields;
+
+    @Label("Locals")
+    @Description("Parameters and local variables bound in the class")
+    public int locals;
+}
@@ -0,0 +1,146 @@
+package visitor;
+
+import java.util.*;
+import syntaxtree.*;
+
+/**
+ * An index of the class hierarchy, built once the superclass links of
+ * phase 2 are in place.  It numbers the classes in a depth-first walk
+ * over 'subclasses' and fills in, for every class it reaches:
+ * - 'depth': the number of superclasses above it
+ * - 'preOrder'/'postOrder': its numbers on entry and exit of the walk,
+ *   so a is a subclass of b exactly when a's interval nests in b's
+ * - 'jump': a superclass further up, chosen so that ancestorAt takes
+ *   O(log depth) steps (the skew-binary jump pointers of Myers); each
+ *   class holds one pointer, so the index is linear in the number of
+ *   classes however deep the hierarchy
+ * Classes on an inheritance cycle are not reached; their preOrder stays -1.
+ */
+public class ClassHierarchy
+{
+    // all reached classes, parents before their subclasses
+    private ClassDecl[] topoOrder;
+
+    /**
+     * Build the index for the given roots (classes without a superclass)
+     * and everything below them.
+     *
+     * @param roots the root classes, in the order they should be numbered
+     */
+    public ClassHierarchy(List<ClassDecl> roots)
+    {
+        ArrayList<ClassDecl> order = new ArrayList<ClassDecl>();
+        int counter = 0;
+
+        // each frame is a class and the index of its next subclass to visit
+        ArrayDeque<ClassDecl> stack = new ArrayDeque<ClassDecl>();
+        ArrayDeque<Integer> next = new ArrayDeque<Integer>();
+        for(ClassDecl root : roots)
+        {
+            root.depth = 0;
+            root.jump = root;
+            root.preOrder = counter++;
+            order.add(root);
+            stack.push(root);
+            next.push(0);
+            while(!stack.isEmpty())
+            {
+                ClassDecl c = stack.peek();
+                int i = next.pop();
+                if(i < c.subclasses.size())
+                {
+                    next.push(i + 1);
+                    ClassDecl sub = c.subclasses.get(i);
+                    enter(c, sub);
+                    sub.preOrder = counter++;
+                    order.add(sub);
+                    stack.push(sub);
+                    next.push(0);
+                }
+                else
+                {
+                    c.postOrder = counter++;
+                    stack.pop();
+                }
+            }
+        }
+        topoOrder = order.toArray(new ClassDecl[order.size()]);
+    }
+
+    // set the depth and jump pointer of a subclass: if the superclass's
+    // jump spans as many levels as its jump's jump, the two are merged
+    // into one twice as long, otherwise the jump is to the superclass
+    private static void enter(ClassDecl sup, ClassDecl sub)
+    {
+        ClassDecl j = sup.jump;
+        if(sup.depth - j.depth == j.depth - j.jump.depth)
+        {
+            sub.jump = j.jump;
+        }
+        else
+        {
+            sub.jump = sup;
+        }
+        sub.depth = sup.depth + 1;
+    }
+
+    /**
+     * Build the index for a program whose superclasses have been linked.
+     *
+     * @param env the global class environment
+     * @param p the program
+     * @return the index
+     */
+    public static ClassHierarchy build(HashMap<String,ClassDecl> env, Program p)
+    {
+        ArrayList<ClassDecl> roots = new ArrayList<ClassDecl>();
+        ClassDecl obj = env.get("Object");
+        if(obj != null) roots.add(obj);
+        for(ClassDecl c : p.classDecls)
+        {
+            c.preOrder = -1;
+            if(c.superLink == null && c != obj) roots.add(c);
+        }
+        return new ClassHierarchy(roots);
+    }
+
+    /**
+     * @return every reached class, each after its superclass
+     */
+    public ClassDecl[] topologicalOrder()
+    {
+        return topoOrder;
+    }
+
+    /**
+     * @return whether the class was reached, i.e. is not on or below an
+     *         inheritance cycle
+     */
+    public static boolean isIndexed(ClassDecl c)
+    {
+        return c.preOrder >= 0;
+    }
+
+    /**
+     * @return whether a is b or a subclass of b
+     */
+    public static boolean isSubclass(ClassDecl a, ClassDecl b)
+    {
+        return a.preOrder >= 0 && b.preOrder >= 0 &&
+               b.preOrder <= a.preOrder && a.postOrder <= b.postOrder;
+    }
+
+    /**
+     * @return the superclass of c at depth k (c itself if k is c's
+     *         depth), or null if c is not that deep
+     */
+    public static ClassDecl ancestorAt(ClassDecl c, int k)
+    {
+        if(c.preOrder < 0 || k < 0 || k > c.depth) return null;
+        while(c.depth > k)
+        {
+            c = c.jump.depth >= k ? c.jump : c.superLink;
+        }
+        return c;
+    }
+}
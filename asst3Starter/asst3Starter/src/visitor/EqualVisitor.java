@@ -1,143 +1,200 @@
 package visitor;
 
+import java.util.Arrays;
 import syntaxtree.*;
 
-public class EqualVisitor extends Visitor2
+// The purpose of this class is to compare two ASTs.  The pairs of nodes
+// still to be compared are kept on an explicit stack, so trees of any
+// depth can be compared.  Each visit method compares what is stored in
+// the node itself and pushes the pairs of children to compare.
+public class EqualVisitor extends BoolVisitor<AstNode>
 {
+    // pairs of nodes still to be compared
+    private AstNode[] left = new AstNode[64];
+    private AstNode[] right = new AstNode[64];
+    private int sp = 0;
 
-    public Boolean equal(AstNode a1, AstNode a2)
+    public boolean equal(AstNode a1, AstNode a2)
     {
-        Boolean out = (Boolean)a1.accept(this, a2);
-        return out != null && out && a1.pos == a2.pos;
+        int base = sp;
+        push(a1, a2);
+        while(sp > base)
+        {
+            sp--;
+            AstNode n1 = left[sp];
+            AstNode n2 = right[sp];
+            left[sp] = right[sp] = null;
+            // each visit method below may assume that its second node has
+            // the same class as its first
+            if(n2 == null || n1.getClass() != n2.getClass() ||
+               n1.pos != n2.pos || !n1.accept(this, n2))
+            {
+                Arrays.fill(left, base, sp, null);
+                Arrays.fill(right, base, sp, null);
+                sp = base;
+                return false;
+            }
+        }
+        return true;
     }
 
-    public Boolean equal(AstList l1, AstList l2)
+    // compare a pair of nodes once the current node is done
+    private boolean push(AstNode a1, AstNode a2)
+    {
+        if(sp == left.length)
+        {
+            left = Arrays.copyOf(left, 2 * sp);
+            right = Arrays.copyOf(right, 2 * sp);
+        }
+        left[sp] = a1;
+        right[sp] = a2;
+        sp++;
+        return true;
+    }
+
+    // compare two lists element by element once the current node is done;
+    // elements that are not both nodes are not compared
+    private boolean push(AstList l1, AstList l2)
     {
         if(l2 == null || l1.size() != l2.size())
         {
             return false;
         }
-        Boolean good = true;
-        for(int i = 0; i < l1.size(); i++)
+        for(int i = l1.size() - 1; i >= 0; i--)
         {
             Object o1 = l1.get(i);
             Object o2 = l2.get(i);
 
             if(o1 instanceof AstNode && o2 instanceof AstNode)
             {
-                good &= equal((AstNode)o1, (AstNode)o2);
+                push((AstNode)o1, (AstNode)o2);
             }
         }
-        return good;
+        return true;
     }
 
     ////////////////////////////////////////////////////
     // Program
     ////////////////////////////////////////////////////
 
-    public Object visit(Program p1, Program p2)
+    public boolean visit(Program p1, AstNode n)
     {
-        return equal(p1.classDecls, p2.classDecls);
+        Program p2 = (Program)n;
+        return push(p1.classDecls, p2.classDecls);
     }
 
     ////////////////////////////////////////////////////
     // Decls
     ////////////////////////////////////////////////////
 
-    public Object visit(ClassDecl c1, ClassDecl c2)
+    public boolean visit(ClassDecl c1, AstNode n)
     {
-        return equal(c1.decls, c2.decls);
+        ClassDecl c2 = (ClassDecl)n;
+        return push(c1.decls, c2.decls);
     }
 
-    public Object visit(MethodDecl m1, MethodDecl m2)
+    public boolean visit(MethodDecl m1, AstNode n)
     {
+        MethodDecl m2 = (MethodDecl)n;
+        m1.materialize();
+        m2.materialize();
         return m1.name.equals(m2.name) &&
-               equal(m1.params, m2.params) &&
-               equal(m1.stmts, m2.stmts);
+               push(m1.params, m2.params) &&
+               push(m1.stmts, m2.stmts);
     }
 
-    public Object visit(MethodDeclNonVoid m1, MethodDeclNonVoid m2)
+    public boolean visit(MethodDeclNonVoid m1, AstNode n)
     {
-
-        return (Boolean)visit((MethodDecl)m1, (MethodDecl)m2) &&
-               equal(m1.rtnType, m2.rtnType) &&
-               equal(m1.rtnExp, m2.rtnExp);
+        MethodDeclNonVoid m2 = (MethodDeclNonVoid)n;
+        return visit((MethodDecl)m1, n) &&
+               push(m1.rtnType, m2.rtnType) &&
+               push(m1.rtnExp, m2.rtnExp);
     }
 
-    public Object visit(VarDecl v1, VarDecl v2)
+    public boolean visit(VarDecl v1, AstNode n)
     {
-        return equal(v1.type, v2.type) && v1.name.equals(v2.name);
+        VarDecl v2 = (VarDecl)n;
+        return push(v1.type, v2.type) && v1.name.equals(v2.name);
     }
 
-    public Object visit(FieldDecl v1, FieldDecl v2)
+    public boolean visit(FieldDecl v1, AstNode n)
     {
-        return visit((VarDecl)v1, (VarDecl)v2);
+        return visit((VarDecl)v1, n);
     }
 
-    public Object visit(ParamDecl p1, ParamDecl p2)
+    public boolean visit(ParamDecl p1, AstNode n)
     {
-        return visit((VarDecl)p1, (VarDecl)p2);
+        return visit((VarDecl)p1, n);
     }
 
-    public Object visit(LocalVarDecl v1, LocalVarDecl v2)
+    public boolean visit(LocalVarDecl v1, AstNode n)
     {
-        return (Boolean)visit((VarDecl)v1, (VarDecl)v2) && equal(v1.initExp, v2.initExp);
+        LocalVarDecl v2 = (LocalVarDecl)n;
+        return visit((VarDecl)v1, n) && push(v1.initExp, v2.initExp);
     }
 
     ////////////////////////////////////////////////////
     // Statements
     ////////////////////////////////////////////////////
 
-    public Object visit(Assign a1, Assign a2)
+    public boolean visit(Assign a1, AstNode n)
     {
-        return equal(a1.lhs,a2.lhs) && equal(a1.rhs,a2.rhs);
+        Assign a2 = (Assign)n;
+        return push(a1.lhs,a2.lhs) && push(a1.rhs,a2.rhs);
     }
 
-    public Object visit(Block b1, Block b2)
+    public boolean visit(Block b1, AstNode n)
     {
-        return equal(b1.stmts, b2.stmts);
+        Block b2 = (Block)n;
+        return push(b1.stmts, b2.stmts);
     }
 
-    public Object visit(CallStmt c1, CallStmt c2)
+    public boolean visit(CallStmt c1, AstNode n)
     {
-        return equal(c1.callExp, c2.callExp);
+        CallStmt c2 = (CallStmt)n;
+        return push(c1.callExp, c2.callExp);
     }
 
-    public Object visit(LocalDeclStmt v1, LocalDeclStmt v2)
+    public boolean visit(LocalDeclStmt v1, AstNode n)
     {
-        return equal(v1.localVarDecl, v2.localVarDecl);
+        LocalDeclStmt v2 = (LocalDeclStmt)n;
+        return push(v1.localVarDecl, v2.localVarDecl);
     }
 
-    public Object visit(If i1, If i2)
+    public boolean visit(If i1, AstNode n)
     {
-        return equal(i1.exp, i2.exp) &&
-               equal(i1.trueStmt, i2.trueStmt) &&
-               equal(i1.falseStmt, i2.falseStmt);
+        If i2 = (If)n;
+        return push(i1.exp, i2.exp) &&
+               push(i1.trueStmt, i2.trueStmt) &&
+               push(i1.falseStmt, i2.falseStmt);
     }
 
-    public Object visit(While w1, While w2)
+    public boolean visit(While w1, AstNode n)
     {
-        return equal(w1.exp, w2.exp) &&
-               equal(w1.body, w2.body);
+        While w2 = (While)n;
+        return push(w1.exp, w2.exp) &&
+               push(w1.body, w2.body);
     }
 
-    public Object visit(Break b1, Break b2)
+    public boolean visit(Break b1, AstNode n)
     {
         return true;
     }
 
-    public Object visit(Switch s1, Switch s2)
+    public boolean visit(Switch s1, AstNode n)
     {
-        return equal(s1.exp, s2.exp) &&
-               equal(s1.stmts, s2.stmts);
+        Switch s2 = (Switch)n;
+        return push(s1.exp, s2.exp) &&
+               push(s1.stmts, s2.stmts);
     }
 
-    public Object visit(Case c1, Case c2)
+    public boolean visit(Case c1, AstNode n)
     {
-        return equal(c1.exp, c2.exp);
+        Case c2 = (Case)n;
+        return push(c1.exp, c2.exp);
     }
 
-    public Object visit(Default d1, Default d2)
+    public boolean visit(Default d1, AstNode n)
     {
         return true;
     }
@@ -148,77 +205,89 @@ public class EqualVisitor extends Visitor2
     ////////////////////////////////////////////////////
 
 
-    public Object visit(ArrayLookup a1, ArrayLookup a2)
+    public boolean visit(ArrayLookup a1, AstNode n)
     {
-        return equal(a1.arrExp, a2.arrExp) &&
-               equal(a1.idxExp, a2.idxExp);
+        ArrayLookup a2 = (ArrayLookup)n;
+        return push(a1.arrExp, a2.arrExp) &&
+               push(a1.idxExp, a2.idxExp);
     }
 
-    public Object visit(Cast c1, Cast c2)
+    public boolean visit(Cast c1, AstNode n)
     {
-        return equal(c1.castType, c2.castType) &&
-               equal(c1.exp, c2.exp);
+        Cast c2 = (Cast)n;
+        return push(c1.castType, c2.castType) &&
+               push(c1.exp, c2.exp);
     }
 
-    public Object visit(Call c1, Call c2)
+    public boolean visit(Call c1, AstNode n)
     {
-        return equal(c1.obj, c2.obj) &&
-               equal(c1.args, c2.args);
+        Call c2 = (Call)n;
+        return push(c1.obj, c2.obj) &&
+               push(c1.args, c2.args);
     }
 
-    public Object visit(FieldAccess a1, FieldAccess a2)
+    public boolean visit(FieldAccess a1, AstNode n)
     {
-        return equal(a1.exp, a2.exp);
+        FieldAccess a2 = (FieldAccess)n;
+        return push(a1.exp, a2.exp);
     }
 
-    public Object visit(InstanceOf i1, InstanceOf i2)
+    public boolean visit(InstanceOf i1, AstNode n)
     {
-        return equal(i1.exp, i2.exp) &&
-               equal(i1.checkType, i2.checkType);
+        InstanceOf i2 = (InstanceOf)n;
+        return push(i1.exp, i2.exp) &&
+               push(i1.checkType, i2.checkType);
     }
 
-    public Object visit(NewArray n1, NewArray n2)
+    public boolean visit(NewArray n1, AstNode n)
     {
-        return equal(n1.objType, n2.objType) &&
-               equal(n1.sizeExp, n2.sizeExp);
+        NewArray n2 = (NewArray)n;
+        return push(n1.objType, n2.objType) &&
+               push(n1.sizeExp, n2.sizeExp);
     }
 
-    public Object visit(NewObject n1, NewObject n2)
+    public boolean visit(NewObject n1, AstNode n)
     {
-        return equal(n1.objType, n2.objType);
+        NewObject n2 = (NewObject)n;
+        return push(n1.objType, n2.objType);
     }
 
-    public Object visit(UnExp u1, UnExp u2)
+    public boolean visit(UnExp u1, AstNode n)
     {
-        return equal(u1.exp, u2.exp);
+        UnExp u2 = (UnExp)n;
+        return push(u1.exp, u2.exp);
     }
 
-    public Object visit(BinExp b1, BinExp b2)
+    public boolean visit(BinExp b1, AstNode n)
     {
-        return equal(b1.left, b2.left) &&
-               equal(b1.right, b2.right);
+        BinExp b2 = (BinExp)n;
+        return push(b1.left, b2.left) &&
+               push(b1.right, b2.right);
     }
 
     ////////////////////////////////////////////////////
     // Leaf Expressions
     ////////////////////////////////////////////////////
 
-    public Object visit(False f1, False f2)         { return true; }
-    public Object visit(Null n1, Null n2)           { return true; }
-    public Object visit(Super s1, Super s2)         { return true; }
-    public Object visit(This t1, This t2)           { return true; }
-    public Object visit(True t1, True t2)           { return true; }
+    public boolean visit(False f1, AstNode n)        { return true; }
+    public boolean visit(Null n1, AstNode n)         { return true; }
+    public boolean visit(Super s1, AstNode n)        { return true; }
+    public boolean visit(This t1, AstNode n)         { return true; }
+    public boolean visit(True t1, AstNode n)         { return true; }
 
-    public Object visit(IDExp i1, IDExp i2)
+    public boolean visit(IDExp i1, AstNode n)
     {
+        IDExp i2 = (IDExp)n;
         return i1.name.equals(i2.name);
     }
-    public Object visit(IntLit i1, IntLit i2)
+    public boolean visit(IntLit i1, AstNode n)
     {
-        return Boolean.valueOf(i1.val == i2.val);
+        IntLit i2 = (IntLit)n;
+        return i1.val == i2.val;
     }
-    public Object visit(StringLit s1, StringLit s2)
+    public boolean visit(StringLit s1, AstNode n)
     {
+        StringLit s2 = (StringLit)n;
         return s1.str.equals(s2.str);
     }
 
@@ -226,27 +295,20 @@ public class EqualVisitor extends Visitor2
     // Types
     ////////////////////////////////////////////////////
 
-    public Object visit(ArrayType t1, ArrayType t2)
+    public boolean visit(ArrayType t1, AstNode n)
     {
-        return equal(t1.baseType, t2.baseType);
+        ArrayType t2 = (ArrayType)n;
+        return push(t1.baseType, t2.baseType);
     }
-    public Object visit(IDType t1, IDType t2)
+    public boolean visit(IDType t1, AstNode n)
     {
+        IDType t2 = (IDType)n;
         return t1.name.equals(t2.name);
     }
 
-    public Object visit(BoolType t1, BoolType t2)   { return true; }
-    public Object visit(IntType t1, IntType t2)     { return true; }
-    public Object visit(VoidType t1, VoidType t2)   { return true; }
-    public Object visit(NullType t1, NullType t2)   { return true; }
-    public Object visit(ErrorType t1, ErrorType t2) { return true; }
-
-    ////////////////////////////////////////////////////
-    // Lists
-    ////////////////////////////////////////////////////
-
-    public Object visit(AstList l1, AstList l2)
-    {
-        return equal(l1, l2);
-    }
+    public boolean visit(BoolType t1, AstNode n)     { return true; }
+    public boolean visit(IntType t1, AstNode n)      { return true; }
+    public boolean visit(VoidType t1, AstNode n)     { return true; }
+    public boolean visit(NullType t1, AstNode n)     { return true; }
+    public boolean visit(ErrorType t1, AstNode n)    { return true; }
 }
@@ -62,7 +62,7 @@ public class InitPredefined
 
     private static void superMethod(ClassDecl t, ClassDecl s, String m)
     {
-        t.methodEnv.get(m).superMethod = t.methodEnv.get(m);
+        t.methodEnv.get(m).superMethod = s.methodEnv.get(m);
     }
 
     private static ClassDecl createClass(String name, String superName)
@@ -0,0 +1,296 @@
+package visitor;
+
+import syntaxtree.*;
+
+/**
+ * A visitor whose visit methods take an argument of type A and return an
+ * int, without boxing it.  By default it walks the tree like Visitor and
+ * returns 0.
+ */
+public class IntVisitor<A>
+{
+    ////////////////////////////////////////////////////
+    // Abstract nodes
+    ////////////////////////////////////////////////////
+
+    public int visit(AstNode n, A arg)     { return 0; }
+    public int visit(Decl n, A arg)        { return 0; }
+    public int visit(Stmt n, A arg)        { return 0; }
+    public int visit(Exp n, A arg)         { return 0; }
+    public int visit(Type n, A arg)        { return 0; }
+
+    public int visit(Label n, A arg)       { return 0; }
+    public int visit(BreakTarget n, A arg) { return 0; }
+
+
+    ////////////////////////////////////////////////////
+    // Program
+    ////////////////////////////////////////////////////
+
+    public int visit(Program n, A arg)
+    {
+        n.classDecls.accept(this, arg);
+        n.mainStmt.accept(this, arg);
+        return 0;
+    }
+
+    ////////////////////////////////////////////////////
+    // Decls
+    ////////////////////////////////////////////////////
+
+    public int visit(ClassDecl n, A arg)
+    {
+        n.decls.accept(this, arg);
+        return 0;
+    }
+
+    public int visit(MethodDecl n, A arg)
+    {
+        n.materialize();
+        n.params.accept(this, arg);
+        n.stmts.accept(this, arg);
+        return 0;
+    }
+
+    public int visit(MethodDeclVoid n, A arg)
+    {
+        return visit((MethodDecl)n, arg);
+    }
+
+    public int visit(MethodDeclNonVoid n, A arg)
+    {
+        n.rtnType.accept(this, arg);
+        visit((MethodDecl)n, arg);
+        n.rtnExp.accept(this, arg);
+        return 0;
+    }
+
+    public int visit(VarDecl n, A arg)
+    {
+        n.type.accept(this, arg);
+        return 0;
+    }
+
+    public int visit(FieldDecl n, A arg)
+    {
+        return visit((VarDecl)n, arg);
+    }
+
+    public int visit(ParamDecl n, A arg)
+    {
+        return visit((VarDecl)n, arg);
+    }
+
+    public int visit(LocalVarDecl n, A arg)
+    {
+        n.initExp.accept(this, arg);
+        return visit((VarDecl)n, arg);
+    }
+
+    ////////////////////////////////////////////////////
+    // Stmts
+    ////////////////////////////////////////////////////
+
+    public int visit(Assign n, A arg)
+    {
+        n.lhs.accept(this, arg);
+        n.rhs.accept(this, arg);
+        return 0;
+    }
+
+    public int visit(Block n, A arg)
+    {
+        n.stmts.accept(this, arg);
+        return 0;
+    }
+
+    public int visit(CallStmt n, A arg)
+    {
+        n.callExp.accept(this, arg);
+        return 0;
+    }
+
+    public int visit(LocalDeclStmt n, A arg)
+    {
+        n.localVarDecl.accept(this, arg);
+        return 0;
+    }
+
+    public int visit(If n, A arg)
+    {
+        n.exp.accept(this, arg);
+        n.trueStmt.accept(this, arg);
+        n.falseStmt.accept(this, arg);
+        return 0;
+    }
+
+    public int visit(While n, A arg)
+    {
+        n.exp.accept(this, arg);
+        n.body.accept(this, arg);
+        return 0;
+    }
+
+    public int visit(Break n, A arg)
+    {
+        return 0;
+    }
+
+    public int visit(Switch n, A arg)
+    {
+        n.exp.accept(this, arg);
+        n.stmts.accept(this, arg);
+        return 0;
+    }
+
+    public int visit(Case n, A arg)
+    {
+        n.exp.accept(this, arg);
+        return 0;
+    }
+
+    public int visit(Default n, A arg)
+    {
+        return 0;
+    }
+
+    ////////////////////////////////////////////////////
+    // Expressions
+    ////////////////////////////////////////////////////
+
+
+    public int visit(ArrayLookup n, A arg)
+    {
+        n.arrExp.accept(this, arg);
+        n.idxExp.accept(this, arg);
+        return 0;
+    }
+
+    public int visit(Cast n, A arg)
+    {
+        n.castType.accept(this, arg);
+        n.exp.accept(this, arg);
+        return 0;
+    }
+
+    public int visit(Call n, A arg)
+    {
+        n.args.accept(this, arg);
+        n.obj.accept(this, arg);
+        return 0;
+    }
+
+    public int visit(FieldAccess n, A arg)
+    {
+        n.exp.accept(this, arg);
+        return 0;
+    }
+
+    public int visit(InstanceOf n, A arg)
+    {
+        n.exp.accept(this, arg);
+        n.checkType.accept(this, arg);
+        return 0;
+    }
+
+    public int visit(NewArray n, A arg)
+    {
+        n.objType.accept(this, arg);
+        n.sizeExp.accept(this, arg);
+        return 0;
+    }
+
+    public int visit(NewObject n, A arg)
+    {
+        n.objType.accept(this, arg);
+        return 0;
+    }
+
+
+    ////////////////////////////////////////////////////
+    // Unary Expressions
+    ////////////////////////////////////////////////////
+
+    public int visit(UnExp n, A arg)
+    {
+        n.exp.accept(this, arg);
+        return 0;
+    }
+
+    public int visit(Not n, A arg)         { return visit((UnExp)n, arg); }
+    public int visit(ArrayLength n, A arg) { return visit((UnExp)n, arg); }
+
+    ////////////////////////////////////////////////////
+    // Binary Expressions
+    ////////////////////////////////////////////////////
+
+    public int visit(BinExp n, A arg)
+    {
+        n.left.accept(this, arg);
+        n.right.accept(this, arg);
+        return 0;
+    }
+
+    public int visit(And n, A arg)         { return visit((BinExp)n, arg); }
+    public int visit(Equals n, A arg)      { return visit((BinExp)n, arg); }
+    public int visit(LessThan n, A arg)    { return visit((BinExp)n, arg); }
+    public int visit(GreaterThan n, A arg) { return visit((BinExp)n, arg); }
+    public int visit(Minus n, A arg)       { return visit((BinExp)n, arg); }
+    public int visit(Or n, A arg)          { return visit((BinExp)n, arg); }
+    public int visit(Plus n, A arg)        { return visit((BinExp)n, arg); }
+    public int visit(Times n, A arg)       { return visit((BinExp)n, arg); }
+    public int visit(Divide n, A arg)      { return visit((BinExp)n, arg); }
+    public int visit(Remainder n, A arg)   { return visit((BinExp)n, arg); }
+
+    ////////////////////////////////////////////////////
+    // Leaf Expressions
+    ////////////////////////////////////////////////////
+
+    public int visit(False n, A arg)     { return 0; }
+    public int visit(Null n, A arg)      { return 0; }
+    public int visit(Super n, A arg)     { return 0; }
+    public int visit(This n, A arg)      { return 0; }
+    public int visit(True n, A arg)      { return 0; }
+    public int visit(IDExp n, A arg)     { return 0; }
+    public int visit(IntLit n, A arg)    { return 0; }
+    public int visit(StringLit n, A arg) { return 0; }
+
+    ////////////////////////////////////////////////////
+    // Types
+    ////////////////////////////////////////////////////
+
+    public int visit(ArrayType n, A arg)
+    {
+        n.baseType.accept(this, arg);
+        return 0;
+    }
+
+    public int visit(BoolType n, A arg)  { return 0; }
+    public int visit(IntType n, A arg)   { return 0; }
+    public int visit(IDType n, A arg)    { return 0; }
+    public int visit(VoidType n, A arg)  { return 0; }
+    public int visit(NullType n, A arg)  { return 0; }
+    public int visit(ErrorType n, A arg) { return 0; }
+
+    ////////////////////////////////////////////////////
+    // Lists
+    ////////////////////////////////////////////////////
+
+    public int visit(AstList lst, A arg)
+    {
+        for(Object obj : lst)
+        {
+            if(obj != null && obj instanceof AstNode)
+            {
+                ((AstNode)obj).accept(this, arg);
+            }
+        }
+        return 0;
+    }
+
+    public int visit(ClassDeclList n, A arg) { return visit((AstList)n, arg); }
+    public int visit(ExpList n, A arg)       { return visit((AstList)n, arg); }
+    public int visit(DeclList n, A arg)      { return visit((AstList)n, arg); }
+    public int visit(StmtList n, A arg)      { return visit((AstList)n, arg); }
+    public int visit(VarDeclList n, A arg)   { return visit((AstList)n, arg); }
+}
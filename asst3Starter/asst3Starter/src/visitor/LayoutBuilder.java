@@ -0,0 +1,143 @@
+package visitor;
+
+import java.util.*;
+import java.util.concurrent.*;
+import syntaxtree.*;
+
+// The purpose of this class is to compute the object layout of every
+// class:
+// - the number of primitive fields ('numDataFields') and of object
+//   fields ('numObjFields'), inherited fields included
+// - the offset of every field, kept in a side table ('getOffsets')
+// An object is laid out around the word holding its v-table pointer
+// (offset 0).  Object fields (class and array types) follow it, at
+// offsets 4, 8, 12, ...; data fields (int and boolean) precede it, at
+// offsets -4, -8, -12, ...  A subclass appends its own fields to both
+// regions, so the layout of a superclass is a prefix of the layout of
+// each of its subclasses.
+// Classes are processed parents first over 'subclasses'; the subtrees
+// below a class are independent and may be laid out in parallel.
+public class LayoutBuilder
+{
+    // bytes per field
+    public static final int WORD_SIZE = 4;
+
+    ForkJoinPool pool;
+
+    // the offset of each field; made before the fields are laid out, so
+    // that subtrees laid out in parallel never make it grow
+    IntNodeTable offsets;
+
+    /**
+     * @param p the pool to lay out subtrees on, or null to work sequentially
+     */
+    public LayoutBuilder(ForkJoinPool p)
+    {
+        pool = p;
+        offsets = new IntNodeTable(NodeIds.current(), Integer.MIN_VALUE);
+    }
+
+    /**
+     * @return the offset of every field laid out; Integer.MIN_VALUE for
+     *         any other node
+     */
+    public IntNodeTable getOffsets()
+    {
+        return offsets;
+    }
+
+    /**
+     * Lay out every class reachable from Object.
+     *
+     * @param env the global class environment
+     */
+    public void build(HashMap<String,ClassDecl> env)
+    {
+        ClassDecl root = env.get("Object");
+        if(root == null) return;
+        if(pool == null)
+        {
+            ArrayDeque<ClassDecl> work = new ArrayDeque<ClassDecl>();
+            work.push(root);
+            while(!work.isEmpty())
+            {
+                ClassDecl c = work.pop();
+                layout(c);
+                for(ClassDecl sub : c.subclasses)
+                {
+                    work.push(sub);
+                }
+            }
+        }
+        else
+        {
+            pool.invoke(new SubtreeTask(root));
+        }
+    }
+
+    /**
+     * Lay out one class whose superclass has been laid out already.
+     */
+    void layout(ClassDecl c)
+    {
+        int numData = c.superLink == null ? 0 : c.superLink.numDataFields;
+        int numObj  = c.superLink == null ? 0 : c.superLink.numObjFields;
+        for(Decl d : c.decls)
+        {
+            if(!(d instanceof FieldDecl)) continue;
+            FieldDecl f = (FieldDecl)d;
+            // a duplicate field was reported by Sem1; it gets no offset
+            if(c.fieldEnv.get(f.name) != f) continue;
+            if(f.type.isInt() || f.type.isBoolean())
+            {
+                numData++;
+                offsets.put(f, -WORD_SIZE * numData);
+            }
+            else
+            {
+                numObj++;
+                offsets.put(f, WORD_SIZE * numObj);
+            }
+        }
+        c.numDataFields = numData;
+        c.numObjFields = numObj;
+    }
+
+    // lays out a class and everything below it; a chain of single
+    // subclasses is followed in a loop, and only a class with several
+    // subclasses forks, so deep hierarchies don't nest tasks
+    private class SubtreeTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private transient ClassDecl top;
+
+        SubtreeTask(ClassDecl c)
+        {
+            top = c;
+        }
+
+        @Override
+        protected void compute()
+        {
+            ClassDecl c = top;
+            ArrayList<SubtreeTask> forked = new ArrayList<SubtreeTask>();
+            while(c != null)
+            {
+                layout(c);
+                ClassDeclList subs = c.subclasses;
+                for(int i = 1; i < subs.size(); i++)
+                {
+                    SubtreeTask t = new SubtreeTask(subs.get(i));
+                    t.fork();
+                    forked.add(t);
+                }
+                c = subs.isEmpty() ? null : subs.get(0);
+            }
+            for(SubtreeTask t : forked)
+            {
+                t.join();
+            }
+        }
+    }
+}
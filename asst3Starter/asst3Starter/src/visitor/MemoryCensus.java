@@ -0,0 +1,397 @@
+package visitor;
+
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import syntaxtree.*;
+
+// The purpose of this class is to estimate the heap used by an AST, for
+// the -memstats flag.  For each syntaxtree class (lists included) it
+// counts
+// - the instances reachable from the root by Traversal
+// - their shallow bytes: the object itself, plus a list's element array
+// - their retained bytes: their subtrees, i.e. what would go with them,
+//   counting a subtree nested in another of the same class only once
+// It also counts the unused capacity of the lists, and the Strings
+// holding names and literals that repeat the contents of another one;
+// a String is charged to the first node seen holding it.
+// Sizes are computed from the fields of each class, assuming a 64-bit
+// JVM with compressed object pointers (12-byte headers, 4-byte
+// references, 8-byte alignment) and compact strings.  Semantic
+// information such as environments and v-tables is not counted.
+public class MemoryCensus extends Traversal
+{
+    /**
+     * The figures for one class.
+     */
+    public static class Row
+    {
+        public final String name;
+        public int count;
+        public long shallow;
+        public long retained;
+
+        // instances entered but not yet exited; for a list class, the
+        // elements of its instances
+        int open;
+        // the row's index
+        final int index;
+
+        Row(String n, int i)
+        {
+            name = n;
+            index = i;
+        }
+    }
+
+    // the estimated size of an instance of each class
+    private static final ClassValue<Integer> SIZES = new ClassValue<Integer>()
+    {
+        protected Integer computeValue(Class<?> c)
+        {
+            return shallowSize(c);
+        }
+    };
+
+    // the sizes of a String and of an array, less its elements
+    private static final int STRING_SIZE = 24;
+    private static final int ARRAY_HEADER = 16;
+
+    private HashMap<Class<?>,Row> rows;
+    private ArrayList<Row> rowList;
+
+    // the bytes of the subtree of each node exited, and the index + 1
+    // of the row of the list a node is an element of (0 for none)
+    private IntNodeTable subtree;
+    private IntNodeTable member;
+
+    // the nodes entered but not yet exited: their bytes so far, their
+    // rows, whether each is the outermost of its class, and the list
+    // row each is an element of
+    private long[] acc;
+    private Row[] rowOf;
+    private boolean[] outermost;
+    private Row[] inList;
+    private int sp;
+
+    // the lists entered whose owner has not been exited yet, with the
+    // depth of the owner and whether the list is the outermost of its
+    // class
+    private ArrayList<AstList> pending;
+    private ArrayList<Integer> pendingDepth;
+    private ArrayList<Boolean> pendingOutermost;
+
+    private int numLists;
+    private long unusedSlots;
+
+    // the String instances seen, and their distinct contents
+    private IdentityHashMap<String,Boolean> strings;
+    private HashSet<String> values;
+    private long stringBytes;
+    private long valueBytes;
+
+    public MemoryCensus()
+    {
+        rows = new HashMap<Class<?>,Row>();
+        rowList = new ArrayList<Row>();
+        subtree = new IntNodeTable(NodeIds.current(), 0);
+        member = new IntNodeTable(NodeIds.current(), 0);
+        acc = new long[64];
+        rowOf = new Row[64];
+        outermost = new boolean[64];
+        inList = new Row[64];
+        sp = 0;
+        pending = new ArrayList<AstList>();
+        pendingDepth = new ArrayList<Integer>();
+        pendingOutermost = new ArrayList<Boolean>();
+        numLists = 0;
+        unusedSlots = 0;
+        strings = new IdentityHashMap<String,Boolean>();
+        values = new HashSet<String>();
+        stringBytes = 0;
+        valueBytes = 0;
+    }
+
+    /**
+     * Take the census of a tree.
+     *
+     * @param root the root of the tree, usually the Program
+     * @return this census
+     */
+    public MemoryCensus take(AstNode root)
+    {
+        walk(root);
+        return this;
+    }
+
+    /**
+     * @return the figures for each class seen, largest retained first
+     */
+    public List<Row> getRows()
+    {
+        ArrayList<Row> result = new ArrayList<Row>(rowList);
+        result.sort((a, b) -> a.retained != b.retained ?
+                              Long.compare(b.retained, a.retained) :
+                              a.name.compareTo(b.name));
+        return result;
+    }
+
+    /**
+     * @return the number of instances seen, lists included
+     */
+    public long getCount()
+    {
+        long n = 0;
+        for(Row r : rowList) n += r.count;
+        return n;
+    }
+
+    /**
+     * @return the shallow bytes of everything seen, Strings included
+     */
+    public long getBytes()
+    {
+        long n = stringBytes;
+        for(Row r : rowList) n += r.shallow;
+        return n;
+    }
+
+    /**
+     * @return the number of lists seen
+     */
+    public int getLists()
+    {
+        return numLists;
+    }
+
+    /**
+     * @return the element slots allocated but not used by the lists
+     */
+    public long getUnusedSlots()
+    {
+        return unusedSlots;
+    }
+
+    /**
+     * @return the number of String instances seen
+     */
+    public int getStrings()
+    {
+        return strings.size();
+    }
+
+    /**
+     * @return the number of String instances whose contents another one
+     *         seen before already had
+     */
+    public int getDuplicateStrings()
+    {
+        return strings.size() - values.size();
+    }
+
+    /**
+     * @return the bytes of the String instances seen
+     */
+    public long getStringBytes()
+    {
+        return stringBytes;
+    }
+
+    /**
+     * @return the bytes of the duplicate String instances
+     */
+    public long getDuplicateStringBytes()
+    {
+        return stringBytes - valueBytes;
+    }
+
+    /**
+     * Print the census as a table.
+     *
+     * @param out where to print
+     * @param title the line to print above the table
+     */
+    public void print(PrintStream out, String title)
+    {
+        out.println(title);
+        out.printf("  %-20s %10s %12s %12s%n", "class", "count", "shallow", "retained");
+        for(Row r : getRows())
+        {
+            out.printf("  %-20s %10d %12d %12d%n", r.name, r.count, r.shallow, r.retained);
+        }
+        out.printf("  %-20s %10d %12d%n", "String", getStrings(), getStringBytes());
+        out.printf("  lists: %d, %d unused slots (%d bytes)%n",
+                   numLists, unusedSlots, 4 * unusedSlots);
+        out.printf("  strings: %d duplicates (%d bytes) of %d distinct values%n",
+                   getDuplicateStrings(), getDuplicateStringBytes(), values.size());
+        out.printf("  total: %d objects, %d bytes%n",
+                   getCount() + getStrings(), getBytes());
+    }
+
+    @Override
+    protected boolean enter(AstNode n)
+    {
+        Row r = row(n.getClass());
+        long own = SIZES.get(n.getClass());
+        r.count++;
+        r.shallow += own;
+        switch(n)
+        {
+            case ClassDecl c ->
+            {
+                own += string(c.name);
+                own += string(c.superName);
+            }
+            case Decl d        -> own += string(d.name);
+            case IDExp e       -> own += string(e.name);
+            case IDType t      -> own += string(t.name);
+            case Call c        -> own += string(c.methName);
+            case FieldAccess f -> own += string(f.varName);
+            case StringLit s   -> own += string(s.str);
+            default            -> { }
+        }
+
+        if(sp == acc.length)
+        {
+            acc = Arrays.copyOf(acc, 2 * sp);
+            rowOf = Arrays.copyOf(rowOf, 2 * sp);
+            outermost = Arrays.copyOf(outermost, 2 * sp);
+            inList = Arrays.copyOf(inList, 2 * sp);
+        }
+        int m = member.get(n);
+        Row list = m == 0 ? null : rowList.get(m - 1);
+        if(list != null) list.open++;
+        acc[sp] = own;
+        rowOf[sp] = r;
+        outermost[sp] = r.open == 0;
+        inList[sp] = list;
+        r.open++;
+        sp++;
+        return true;
+    }
+
+    @Override
+    protected void enterList(AstList lst)
+    {
+        Row r = row(lst.getClass());
+        long own = SIZES.get(lst.getClass()) + arraySize(lst.capacity());
+        r.count++;
+        r.shallow += own;
+        numLists++;
+        unusedSlots += lst.capacity() - lst.size();
+        for(Object obj : lst)
+        {
+            if(obj instanceof AstNode)
+            {
+                member.put((AstNode)obj, r.index + 1);
+            }
+        }
+        // the list is charged to its owner, the node on top of the stack
+        if(sp > 0) acc[sp-1] += own;
+        pending.add(lst);
+        pendingDepth.add(sp);
+        pendingOutermost.add(r.open == 0);
+    }
+
+    @Override
+    protected void exit(AstNode n)
+    {
+        sp--;
+        long bytes = acc[sp];
+        Row r = rowOf[sp];
+        r.open--;
+        if(outermost[sp]) r.retained += bytes;
+        if(inList[sp] != null) inList[sp].open--;
+        rowOf[sp] = null;
+        inList[sp] = null;
+        subtree.put(n, (int)Math.min(bytes, Integer.MAX_VALUE));
+        if(sp > 0) acc[sp-1] += bytes;
+
+        // the lists of n: their elements have all been exited now
+        while(!pending.isEmpty() && pendingDepth.get(pending.size() - 1) == sp + 1)
+        {
+            int k = pending.size() - 1;
+            AstList lst = pending.remove(k);
+            pendingDepth.remove(k);
+            boolean outer = pendingOutermost.remove(k);
+            if(!outer) continue;
+            long total = SIZES.get(lst.getClass()) + arraySize(lst.capacity());
+            for(Object obj : lst)
+            {
+                if(obj instanceof AstNode)
+                {
+                    total += subtree.get((AstNode)obj);
+                }
+            }
+            row(lst.getClass()).retained += total;
+        }
+    }
+
+    // the row for a class
+    private Row row(Class<?> c)
+    {
+        Row r = rows.get(c);
+        if(r == null)
+        {
+            r = new Row(c.getSimpleName(), rowList.size());
+            rows.put(c, r);
+            rowList.add(r);
+        }
+        return r;
+    }
+
+    // count a String held by a node, returning its bytes if it was not
+    // seen before
+    private long string(String s)
+    {
+        if(s == null || strings.put(s, Boolean.TRUE) != null) return 0;
+        long bytes = stringSize(s);
+        stringBytes += bytes;
+        if(values.add(s)) valueBytes += bytes;
+        return bytes;
+    }
+
+    /**
+     * @return the estimated bytes of a String and its character array
+     */
+    public static long stringSize(String s)
+    {
+        boolean latin1 = true;
+        for(int i = 0; i < s.length() && latin1; i++)
+        {
+            latin1 = s.charAt(i) < 256;
+        }
+        return STRING_SIZE + align(ARRAY_HEADER + (latin1 ? 1 : 2) * (long)s.length());
+    }
+
+    // the bytes of an array of references
+    private static long arraySize(int length)
+    {
+        return align(ARRAY_HEADER + 4L * length);
+    }
+
+    // the bytes of an instance of a class, from its instance fields
+    private static int shallowSize(Class<?> c)
+    {
+        long size = 12;
+        for(Class<?> k = c; k != null; k = k.getSuperclass())
+        {
+            for(Field f : k.getDeclaredFields())
+            {
+                if(Modifier.isStatic(f.getModifiers())) continue;
+                Class<?> t = f.getType();
+                if(t == long.class || t == double.class)                       size += 8;
+                else if(t == int.class || t == float.class || !t.isPrimitive()) size += 4;
+                else if(t == short.class || t == char.class)                   size += 2;
+                else                                                           size += 1;
+            }
+        }
+        return (int)align(size);
+    }
+
+    private static long align(long size)
+    {
+        return (size + 7) & ~7L;
+    }
+}
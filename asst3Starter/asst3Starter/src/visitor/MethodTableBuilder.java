@@ -0,0 +1,137 @@
+package visitor;
+
+import errorMsg.*;
+import java.util.*;
+import syntaxtree.*;
+
+// The purpose of this class is to build the flattened method table of
+// every class, once Sem2 has linked the class hierarchy:
+// - classes are processed parents first, starting at Object
+// - each class's table starts as a copy of its superclass's table;
+//   a method that overrides an inherited one takes over its slot and is
+//   linked to it (via 'superMethod'), any other method gets a new slot
+// - each method's slot is stored in its 'vtableOffset'
+// - overriding methods whose return type or parameters differ from the
+//   method they override are reported
+// Afterwards a call can be resolved with lookupMethod, which does not
+// walk the superclass chain.
+public class MethodTableBuilder
+{
+    ErrorMsg errorMsg;
+
+    public MethodTableBuilder(ErrorMsg e)
+    {
+        errorMsg = e;
+    }
+
+    /**
+     * Build the method tables of every class reachable from Object.
+     *
+     * @param env the global class environment
+     */
+    public void build(HashMap<String,ClassDecl> env)
+    {
+        ClassDecl root = env.get("Object");
+        if(root == null) return;
+
+        // depth-first over 'subclasses', so parents are always done first
+        ArrayDeque<ClassDecl> work = new ArrayDeque<ClassDecl>();
+        work.push(root);
+        while(!work.isEmpty())
+        {
+            ClassDecl c = work.pop();
+            buildClass(c);
+            for(int i = c.subclasses.size() - 1; i >= 0; i--)
+            {
+                work.push(c.subclasses.get(i));
+            }
+        }
+    }
+
+    private void buildClass(ClassDecl c)
+    {
+        ClassDecl sup = c.superLink;
+        ArrayList<MethodDecl> table = new ArrayList<MethodDecl>();
+        HashMap<String,Integer> index = new HashMap<String,Integer>();
+        if(sup != null && sup.vtable != null)
+        {
+            table.addAll(Arrays.asList(sup.vtable));
+            index.putAll(sup.vtableIndex);
+        }
+
+        for(Decl d : c.decls)
+        {
+            if(!(d instanceof MethodDecl)) continue;
+            MethodDecl m = (MethodDecl)d;
+            // a duplicate method was reported by Sem1; it gets no slot
+            if(c.methodEnv.get(m.name) != m) continue;
+
+            Integer slot = index.get(m.name);
+            if(slot == null)
+            {
+                m.vtableOffset = table.size();
+                index.put(m.name, table.size());
+                table.add(m);
+            }
+            else
+            {
+                MethodDecl sm = table.get(slot);
+                checkOverride(m, sm);
+                m.superMethod = sm;
+                m.vtableOffset = slot;
+                table.set(slot, m);
+            }
+        }
+
+        c.vtable = table.toArray(new MethodDecl[table.size()]);
+        c.vtableIndex = index;
+    }
+
+    private void checkOverride(MethodDecl m, MethodDecl sm)
+    {
+        if(!returnTypeName(m).equals(returnTypeName(sm)))
+        {
+            errorMsg.error(m.pos, CompError.ReturnOverride());
+            return;
+        }
+        if(m.params.size() != sm.params.size())
+        {
+            errorMsg.error(m.pos, CompError.NumArgsOverride());
+            return;
+        }
+        for(int i = 0; i < m.params.size(); i++)
+        {
+            String t1 = m.params.get(i).type.typeName();
+            String t2 = sm.params.get(i).type.typeName();
+            if(!t1.equals(t2))
+            {
+                errorMsg.error(m.pos, CompError.ArgTypeOverride());
+                return;
+            }
+        }
+    }
+
+    private static String returnTypeName(MethodDecl m)
+    {
+        if(m instanceof MethodDeclNonVoid)
+        {
+            return ((MethodDeclNonVoid)m).rtnType.typeName();
+        }
+        return "V";
+    }
+
+    /**
+     * Find the method a call of the given name on an object of class c
+     * resolves to.
+     *
+     * @param c the class of the object (its table must have been built)
+     * @param name the method name
+     * @return the method, or null if c has no such method
+     */
+    public static MethodDecl lookupMethod(ClassDecl c, String name)
+    {
+        if(c == null || c.vtableIndex == null) return null;
+        Integer slot = c.vtableIndex.get(name);
+        return slot == null ? null : c.vtable[slot];
+    }
+}
@@ -0,0 +1,50 @@
+package visitor;
+
+import java.util.TreeMap;
+import syntaxtree.*;
+
+// The purpose of this class is to count the AST nodes of each syntaxtree
+// class (and the lists that hold them) reachable from a node.  It walks
+// the tree with Traversal, so any depth of nesting can be counted.
+public class NodeCountVisitor extends Traversal
+{
+    // node counts keyed by class name
+    private TreeMap<String,Integer> counts;
+    private int total;
+
+    public NodeCountVisitor()
+    {
+        counts = new TreeMap<String,Integer>();
+        total = 0;
+    }
+
+    /**
+     * @return the number of nodes seen for each syntaxtree class
+     */
+    public TreeMap<String,Integer> getCounts()
+    {
+        return counts;
+    }
+
+    /**
+     * @return the total number of nodes seen, lists excluded
+     */
+    public int getTotal()
+    {
+        return total;
+    }
+
+    @Override
+    protected boolean enter(AstNode n)
+    {
+        counts.merge(n.getClass().getSimpleName(), 1, Integer::sum);
+        total++;
+        return true;
+    }
+
+    @Override
+    protected void enterList(AstList lst)
+    {
+        counts.merge(lst.getClass().getSimpleName(), 1, Integer::sum);
+    }
+}
@@ -0,0 +1,126 @@
+package visitor;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.*;
+import syntaxtree.*;
+
+// The purpose of this class is to pretty-print a program with one task
+// per class on a fork-join pool (for -parallel with -pp or -vpp).
+// - each task prints its class with its own PrettyPrintVisitor into its
+//   own buffer; the tree is only read, so tasks do not interfere
+// - the verbose epilogue (main statement and predefined classes) gets a
+//   buffer of its own
+// - the buffers are kept in declaration order and written with
+//   gathering writes, so the output is byte for byte that of visiting
+//   the program with a single PrettyPrintVisitor
+public class ParallelPrettyPrinter
+{
+    boolean printLinks;
+    boolean printTypes;
+    boolean verbose;
+    Charset charset;
+    ForkJoinPool pool;
+
+    // the rendered output, in order
+    ByteBuffer[] buffers;
+
+    /**
+     * @param charset the charset of the stream the output goes to, which
+     *        the buffers are encoded in
+     */
+    public ParallelPrettyPrinter(boolean printLinks, boolean printTypes, boolean verbose,
+                                 Charset charset, ForkJoinPool p)
+    {
+        this.printLinks = printLinks;
+        this.printTypes = printTypes;
+        this.verbose = verbose;
+        this.charset = charset;
+        pool = p;
+        buffers = new ByteBuffer[0];
+    }
+
+    /**
+     * Print every class of a program, then its epilogue, each into its
+     * own buffer.
+     *
+     * @param p the program
+     */
+    public void render(Program p)
+    {
+        ArrayList<Callable<ByteBuffer>> tasks = new ArrayList<Callable<ByteBuffer>>();
+        for(ClassDecl c : p.classDecls)
+        {
+            tasks.add(() -> {
+                Buffer buf = new Buffer();
+                newVisitor(buf).print(c);
+                return buf.contents();
+            });
+        }
+        tasks.add(() -> {
+            Buffer buf = new Buffer();
+            newVisitor(buf).printEpilogue(p);
+            return buf.contents();
+        });
+
+        List<Future<ByteBuffer>> done = pool.invokeAll(tasks);
+        buffers = new ByteBuffer[done.size()];
+        for(int i = 0; i < buffers.length; i++)
+        {
+            buffers[i] = Tasks.join(done.get(i));
+        }
+    }
+
+    /**
+     * @return the number of bytes rendered
+     */
+    public long size()
+    {
+        long n = 0;
+        for(ByteBuffer b : buffers) n += b.limit();
+        return n;
+    }
+
+    /**
+     * Write the rendered output, as few gathering writes as the channel
+     * allows.  Anything written to a stream over the same file should
+     * be flushed first.
+     *
+     * @param ch where to write
+     */
+    public void writeTo(GatheringByteChannel ch) throws IOException
+    {
+        int first = 0;
+        while(first < buffers.length)
+        {
+            ch.write(buffers, first, buffers.length - first);
+            while(first < buffers.length && !buffers[first].hasRemaining())
+            {
+                first++;
+            }
+        }
+    }
+
+    private PrettyPrintVisitor newVisitor(Buffer buf)
+    {
+        return new PrettyPrintVisitor(printLinks, printTypes, verbose,
+                                      new PrintStream(buf, false, charset));
+    }
+
+    // a byte array stream whose contents can be had without a copy
+    static class Buffer extends ByteArrayOutputStream
+    {
+        Buffer()
+        {
+            super(4096);
+        }
+
+        ByteBuffer contents()
+        {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package visitor;
+
+import errorMsg.*;
+import java.util.*;
+import java.util.concurrent.*;
+import syntaxtree.*;
+
+// The purpose of this class is to run the Sem1 pass with one task per
+// class on a fork-join pool.
+// - each task fills in the fieldEnv and methodEnv of its own class,
+//   reporting into its own forked ErrorMsg
+// - classes are entered into a concurrent global map; when two classes
+//   have the same name, the one declared first (lowest source position,
+//   so the predefined classes always win) stays in the map
+// - DuplicateClass errors and the forked messages are reported in
+//   declaration order, so the messages are the same as those of the
+//   sequential pass
+public class ParallelSem1
+{
+    ConcurrentHashMap<String,ClassDecl> classEnv;
+    ClassDeclList classes;
+    ErrorMsg errorMsg;
+    ForkJoinPool pool;
+
+    public ParallelSem1(ErrorMsg e, ForkJoinPool p)
+    {
+        errorMsg = e;
+        pool     = p;
+        classes  = new ClassDeclList();
+        classEnv = new ConcurrentHashMap<String,ClassDecl>(InitPredefined.initEnv(classes));
+    }
+
+    public HashMap<String,ClassDecl> getEnv()
+    {
+        return new HashMap<String,ClassDecl>(classEnv);
+    }
+
+    /**
+     * Build the environments for every class of the program.
+     *
+     * @param p the program
+     */
+    public void build(Program p)
+    {
+        p.setPredefined(classes);
+
+        ArrayList<Callable<ErrorMsg>> tasks = new ArrayList<Callable<ErrorMsg>>();
+        for(ClassDecl c : p.classDecls)
+        {
+            tasks.add(() -> {
+                enter(c);
+                Sem1Visitor vis = new Sem1Visitor(errorMsg.fork(), null);
+                vis.buildClass(c);
+                return vis.errorMsg;
+            });
+        }
+
+        List<Future<ErrorMsg>> results = pool.invokeAll(tasks);
+
+        for(int i = 0; i < results.size(); i++)
+        {
+            ClassDecl c = p.classDecls.get(i);
+            if(classEnv.get(c.name) != c)
+            {
+                errorMsg.error(c.pos, CompError.DuplicateClass(c.name));
+            }
+            errorMsg.merge(Tasks.join(results.get(i)));
+        }
+    }
+
+    /**
+     * Enter a class into the global environment, keeping whichever
+     * class of that name comes first in the source.
+     */
+    private void enter(ClassDecl c)
+    {
+        classEnv.merge(c.name, c, (old, n) -> n.pos < old.pos ? n : old);
+    }
+}
@@ -0,0 +1,128 @@
+package visitor;
+
+import errorMsg.*;
+import java.util.*;
+import java.util.concurrent.*;
+import syntaxtree.*;
+
+// The purpose of this class is to run the Sem3 pass with one task per
+// class on a fork-join pool.
+// - once Sem1 and Sem2 are done, classEnv and every fieldEnv/methodEnv
+//   are only read, so classes can be bound independently
+// - each task gets its own Sem3Visitor (localEnv, init, breakTargetStack)
+//   and its own forked ErrorMsg
+// - classes with many declarations are split into one task per
+//   declaration; the ClassBindEvent of such a class spans from when its
+//   tasks are submitted to when the last of them is joined
+// - the forked messages are merged back in declaration order, so the
+//   messages are the same as those of the sequential pass
+public class ParallelSem3
+{
+    // classes with more declarations than this get one task per declaration
+    static final int SPLIT_THRESHOLD = 64;
+
+    HashMap<String,ClassDecl> classEnv;
+    ErrorMsg errorMsg;
+    ForkJoinPool pool;
+    int peakLocalEnvSize;
+    XrefIndex.Builder xref;
+
+    public ParallelSem3(HashMap<String,ClassDecl> env, ErrorMsg e, ForkJoinPool p)
+    {
+        classEnv = env;
+        errorMsg = e;
+        pool     = p;
+        peakLocalEnvSize = 0;
+    }
+
+    /**
+     * Record every bound reference into an index builder.  Each task
+     * records into its own builder; they are appended in declaration
+     * order.
+     *
+     * @param b the builder, or null to stop recording
+     */
+    public void setXref(XrefIndex.Builder b)
+    {
+        xref = b;
+    }
+
+    /**
+     * @return the largest localEnv seen by any task
+     */
+    public int getPeakLocalEnvSize()
+    {
+        return peakLocalEnvSize;
+    }
+
+    /**
+     * Bind every class of the program, then the main statement.
+     *
+     * @param p the program
+     */
+    public void bind(Program p)
+    {
+        // the tasks, in declaration order; for each task of a split class,
+        // the class (null otherwise)
+        ArrayList<Future<Sem3Visitor>> tasks = new ArrayList<Future<Sem3Visitor>>();
+        ArrayList<ClassDecl> split = new ArrayList<ClassDecl>();
+        ArrayList<ClassBindEvent> events = new ArrayList<ClassBindEvent>();
+        for(ClassDecl c : p.classDecls)
+        {
+            if(c.decls.size() <= SPLIT_THRESHOLD)
+            {
+                tasks.add(pool.submit(() -> {
+                    Sem3Visitor vis = newTaskVisitor();
+                    c.accept(vis);
+                    return vis;
+                }));
+                split.add(null);
+            }
+            else
+            {
+                ClassBindEvent event = new ClassBindEvent();
+                event.begin();
+                events.add(event);
+                for(Decl d : c.decls)
+                {
+                    tasks.add(pool.submit(() -> {
+                        Sem3Visitor vis = newTaskVisitor();
+                        vis.bindDecl(c, d);
+                        return vis;
+                    }));
+                    split.add(c);
+                }
+            }
+        }
+
+        int locals = 0;
+        int event = 0;
+        for(int i = 0; i < tasks.size(); i++)
+        {
+            Sem3Visitor vis = Tasks.join(tasks.get(i));
+            errorMsg.merge(vis.errorMsg);
+            peakLocalEnvSize = Math.max(peakLocalEnvSize, vis.getPeakLocalEnvSize());
+            if(xref != null) xref.addAll(vis.xref);
+
+            ClassDecl c = split.get(i);
+            if(c == null) continue;
+            locals += vis.localsBound;
+            if(i + 1 == tasks.size() || split.get(i + 1) != c)
+            {
+                Sem3Visitor.classBound(events.get(event++), c, locals);
+                locals = 0;
+            }
+        }
+
+        Sem3Visitor vis = new Sem3Visitor(classEnv, errorMsg);
+        vis.setXref(xref);
+        vis.bind(p.mainStmt);
+    }
+
+    private Sem3Visitor newTaskVisitor()
+    {
+        Sem3Visitor vis = new Sem3Visitor(classEnv, errorMsg.fork());
+        if(xref != null) vis.setXref(new XrefIndex.Builder());
+        return vis;
+    }
+}
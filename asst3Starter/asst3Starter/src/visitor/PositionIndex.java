@@ -0,0 +1,383 @@
+package visitor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import syntaxtree.*;
+
+/**
+ * An index from character offsets in the source file to the AST nodes
+ * covering them.
+ *
+ * The extent of a node runs from the first to the last character
+ * position of its subtree, where a node whose position is at a name
+ * (a declaration, IDExp, IDType, Call or FieldAccess) covers the whole
+ * name.  Nodes with no position (pos < 0) are not indexed.
+ *
+ * The nodes are stored sorted by the start of their extent (ancestors
+ * before descendants), and the file is cut into segments, each with
+ * the innermost node covering it.  A node-at-offset query is a binary
+ * search over the segment starts; a nodes-in-range query is a binary
+ * search plus the size of the result.
+ */
+public class PositionIndex
+{
+    // the indexed nodes, sorted by start; their extents, and the
+    // enclosing node of each (-1 for none)
+    private final AstNode[] nodes;
+    private final int[] start;
+    private final int[] end;
+    private final int[] parent;
+
+    // segment i covers offsets segStart[i] .. segStart[i+1]-1, and its
+    // innermost node is nodes[segNode[i]] (-1 for none)
+    private final int[] segStart;
+    private final int[] segNode;
+
+    private PositionIndex(AstNode[] nodes, int[] start, int[] end, int[] parent,
+                          int[] segStart, int[] segNode)
+    {
+        this.nodes = nodes;
+        this.start = start;
+        this.end = end;
+        this.parent = parent;
+        this.segStart = segStart;
+        this.segNode = segNode;
+    }
+
+    /**
+     * Build the index for a tree.
+     *
+     * @param root the root of the tree, usually the Program
+     */
+    public static PositionIndex build(AstNode root)
+    {
+        return new Builder().build(root);
+    }
+
+    /**
+     * @return the innermost node whose extent contains offset, or null
+     *         if there is none
+     */
+    public AstNode nodeAt(int offset)
+    {
+        int k = find(offset);
+        return k < 0 ? null : nodes[k];
+    }
+
+    /**
+     * @return the declaration the innermost node at offset names or
+     *         refers to (for go-to-definition), or null if there is none
+     */
+    public AstNode declarationAt(int offset)
+    {
+        AstNode n = nodeAt(offset);
+        return switch(n)
+        {
+            case IDExp e       -> e.link;
+            case IDType t      -> t.link;
+            case Call c        -> c.methodLink;
+            case FieldAccess f -> f.varDec;
+            case Decl d        -> d;
+            case null, default -> null;
+        };
+    }
+
+    /**
+     * @return the nodes whose extents overlap offsets from .. to
+     *         (inclusive), outermost first and otherwise in source order
+     */
+    public List<AstNode> nodesInRange(int from, int to)
+    {
+        List<AstNode> result = new ArrayList<AstNode>();
+        if(from > to) return result;
+
+        // the nodes containing 'from' that start before it
+        int first = lowerBound(start, from);
+        for(int k = find(from); k >= 0; k = parent[k])
+        {
+            if(start[k] < from && end[k] >= from) result.add(nodes[k]);
+        }
+        Collections.reverse(result);
+
+        // the nodes starting within the range
+        for(int k = first; k < nodes.length && start[k] <= to; k++)
+        {
+            result.add(nodes[k]);
+        }
+        return result;
+    }
+
+    /**
+     * @return the first character position of a node's extent, or -1
+     *         if the node is not indexed
+     */
+    public int startOf(AstNode n)
+    {
+        int k = indexOf(n);
+        return k < 0 ? -1 : start[k];
+    }
+
+    /**
+     * @return the last character position of a node's extent, or -1
+     *         if the node is not indexed
+     */
+    public int endOf(AstNode n)
+    {
+        int k = indexOf(n);
+        return k < 0 ? -1 : end[k];
+    }
+
+    /**
+     * @return the number of nodes in the index
+     */
+    public int size()
+    {
+        return nodes.length;
+    }
+
+    /**
+     * @return the number of segments the file is cut into
+     */
+    public int segments()
+    {
+        return segStart.length;
+    }
+
+    /**
+     * @return an estimate of the heap used by the index, in bytes,
+     *         assuming compressed object pointers
+     */
+    public long footprintBytes()
+    {
+        return 16 + 6 * 16 + 16L * nodes.length + 8L * segStart.length;
+    }
+
+    // the index of the innermost node at offset, or -1
+    private int find(int offset)
+    {
+        int i = upperBound(segStart, offset) - 1;
+        return i < 0 ? -1 : segNode[i];
+    }
+
+    // the index of an indexed node, or -1; a node contains its own
+    // position, so it is on the chain of nodes enclosing it
+    private int indexOf(AstNode n)
+    {
+        if(n == null || n.pos < 0) return -1;
+        int k = find(n.pos);
+        while(k >= 0 && nodes[k] != n)
+        {
+            k = parent[k];
+        }
+        return k;
+    }
+
+    // the first i with a[i] >= key
+    private static int lowerBound(int[] a, int key)
+    {
+        int lo = 0;
+        int hi = a.length;
+        while(lo < hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            if(a[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // the first i with a[i] > key
+    private static int upperBound(int[] a, int key)
+    {
+        int lo = 0;
+        int hi = a.length;
+        while(lo < hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            if(a[mid] <= key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Collects the nodes and their extents with a traversal, then sorts
+     * them and cuts the file into segments.
+     */
+    private static class Builder extends Traversal
+    {
+        private AstNode[] found;
+        private int[] lo;
+        private int[] hi;
+        private int size;
+
+        // the slots of the nodes entered but not yet exited
+        private int[] open;
+        private int top;
+
+        Builder()
+        {
+            found = new AstNode[256];
+            lo = new int[256];
+            hi = new int[256];
+            open = new int[64];
+            size = 0;
+            top = 0;
+        }
+
+        protected boolean enter(AstNode n)
+        {
+            if(size == found.length)
+            {
+                found = Arrays.copyOf(found, 2 * size);
+                lo = Arrays.copyOf(lo, 2 * size);
+                hi = Arrays.copyOf(hi, 2 * size);
+            }
+            if(top == open.length)
+            {
+                open = Arrays.copyOf(open, 2 * top);
+            }
+            found[size] = n;
+            lo[size] = n.pos < 0 ? Integer.MAX_VALUE : n.pos;
+            hi[size] = n.pos < 0 ? -1 : n.pos + nameLength(n) - 1;
+            open[top++] = size++;
+            return true;
+        }
+
+        protected void exit(AstNode n)
+        {
+            // widen the parent's extent to cover this subtree
+            int k = open[--top];
+            if(top > 0)
+            {
+                int p = open[top - 1];
+                lo[p] = Math.min(lo[p], lo[k]);
+                hi[p] = Math.max(hi[p], hi[k]);
+            }
+        }
+
+        PositionIndex build(AstNode root)
+        {
+            walk(root);
+
+            // sort by start, then by end (longest first), then in walk
+            // order, so an ancestor comes before its descendants
+            long[] keys = new long[size];
+            int n = 0;
+            for(int i = 0; i < size; i++)
+            {
+                if(found[i].pos >= 0)
+                {
+                    keys[n++] = ((long)lo[i] << 32) | i;
+                }
+            }
+            keys = Arrays.copyOf(keys, n);
+            Arrays.sort(keys);
+            sortRunsByEnd(keys);
+
+            AstNode[] nodes = new AstNode[n];
+            int[] start = new int[n];
+            int[] end = new int[n];
+            int[] parent = new int[n];
+            for(int k = 0; k < n; k++)
+            {
+                int i = (int)keys[k];
+                nodes[k] = found[i];
+                start[k] = lo[i];
+                end[k] = hi[i];
+            }
+
+            // sweep the nodes in order, keeping the stack of extents
+            // that contain the current position
+            int[] segStart = new int[2 * n + 1];
+            int[] segNode = new int[2 * n + 1];
+            int segs = 0;
+            int[] stack = new int[64];
+            int sp = 0;
+            for(int k = 0; k <= n; k++)
+            {
+                int s = k < n ? start[k] : Integer.MAX_VALUE;
+                while(sp > 0 && end[stack[sp-1]] < s)
+                {
+                    int after = end[stack[--sp]] + 1;
+                    while(sp > 0 && end[stack[sp-1]] < after)
+                    {
+                        // ended inside an extent that overlapped its end
+                        sp--;
+                    }
+                    int owner = sp > 0 ? stack[sp-1] : -1;
+                    if(segs > 0 && segStart[segs-1] == after)
+                    {
+                        segNode[segs-1] = owner;
+                    }
+                    else if(segs == 0 || segStart[segs-1] < after)
+                    {
+                        segStart[segs] = after;
+                        segNode[segs] = owner;
+                        segs++;
+                    }
+                }
+                if(k == n) break;
+                parent[k] = sp > 0 ? stack[sp-1] : -1;
+                if(sp == stack.length)
+                {
+                    stack = Arrays.copyOf(stack, 2 * sp);
+                }
+                stack[sp++] = k;
+                if(segs > 0 && segStart[segs-1] == s)
+                {
+                    segNode[segs-1] = k;
+                }
+                else
+                {
+                    segStart[segs] = s;
+                    segNode[segs] = k;
+                    segs++;
+                }
+            }
+            return new PositionIndex(nodes, start, end, parent,
+                                     Arrays.copyOf(segStart, segs),
+                                     Arrays.copyOf(segNode, segs));
+        }
+
+        // Within each run of nodes with the same start, put the longer
+        // extents first, keeping walk order between equal ones.  A
+        // synthesized node (such as the empty else part of an if) gets
+        // the position of the next token, so it can share a start with
+        // a longer node that does not contain it.  Runs are short, so
+        // this is an insertion sort.
+        private void sortRunsByEnd(long[] keys)
+        {
+            for(int k = 1; k < keys.length; k++)
+            {
+                long key = keys[k];
+                int i = (int)key;
+                int j = k - 1;
+                while(j >= 0 && (keys[j] >>> 32) == (key >>> 32) &&
+                      hi[(int)keys[j]] < hi[i])
+                {
+                    keys[j+1] = keys[j];
+                    j--;
+                }
+                keys[j+1] = key;
+            }
+        }
+
+        // the length of the name at a node's position, or 1
+        private static int nameLength(AstNode n)
+        {
+            String name = switch(n)
+            {
+                case Decl d        -> d.name;
+                case IDExp e       -> e.name;
+                case IDType t      -> t.name;
+                case Call c        -> c.methName;
+                case FieldAccess f -> f.varName;
+                default            -> null;
+            };
+            return name == null || name.isEmpty() ? 1 : name.length();
+        }
+    }
+}
@@ -12,6 +12,11 @@ public class PrettyPrintVisitor extends Visitor
     private PrintStream ps;
     private int indent = 0;
 
+    // prints expressions, statements and types with children, without
+    // recursion; the visit methods print only leaves and declarations, so
+    // those nodes are printed by print() rather than accept
+    private Printer printer = new Printer();
+
     public PrettyPrintVisitor(PrintStream ps)
     {
         this(false,false,ps);
@@ -32,59 +37,6 @@ public class PrettyPrintVisitor extends Visitor
         this.ps = ps;
     }
 
-    protected void binOp(BinExp n, String opString)
-    {
-        ps.print("(");
-        print(n.left);
-        ps.print(opString);
-        print(n.right);
-        ps.print(")"+typ(n.type));
-    }
-
-    @Override
-    public Object visit(And n)
-    {
-        binOp(n, "&&");
-        return null;
-    }
-
-    @Override
-    public Object visit(ArrayLength n)
-    {
-        print(n.exp);
-        ps.print(".length"+typ(n.type));
-        return null;
-    }
-
-    @Override
-    public Object visit(ArrayLookup n)
-    {
-        print(n.arrExp);
-        ps.print("[");
-        print(n.idxExp);
-        ps.print("]"+typ(n.type));
-        return null;
-    }
-
-    @Override
-    public Object visit(ArrayType n)
-    {
-        print(n.baseType);
-        ps.print("[]");
-        return null;
-    }
-
-    @Override
-    public Object visit(Assign n)
-    {
-        tab();
-        print(n.lhs);
-        ps.print(" = ");
-        print(n.rhs);
-        ps.println(";");
-        return null;
-    }
-
     @Override
     public Object visit(BoolType n)
     {
@@ -92,27 +44,6 @@ public class PrettyPrintVisitor extends Visitor
         return null;
     }
 
-    @Override
-    public Object visit(Block n)
-    {
-        tab();
-        ps.println("{");
-        indent();
-        if (n.stmts == null)
-        {
-            tab();
-            ps.println("??null??");
-        }
-        else
-        {
-            print(n.stmts);
-        }
-        unindent();
-        tab();
-        ps.println("}");
-        return null;
-    }
-
     @Override
     public Object visit(Break n)
     {
@@ -122,63 +53,6 @@ public class PrettyPrintVisitor extends Visitor
         return null;
     }
 
-    @Override
-    public Object visit(CallStmt n)
-    {
-        tab();
-        print(n.callExp);
-        ps.println(";");
-        return null;
-    }
-
-    @Override
-    public Object visit(Call n)
-    {
-        String xtn = n.methodLink != null && printLinks ? "@"+n.methodLink.uniqueId : "";
-        print(n.obj);
-        ps.print("."+n.methName+xtn+"(");
-        String sep = "";
-        if (n.args == null)
-        {
-            ps.print("??null??");
-        }
-        else
-        {
-            for (Exp x : n.args)
-            {
-                ps.print(sep);
-                sep = ",";
-                print(x);
-            }
-
-        }
-        ps.print(")"+typ(n.type));
-        return null;
-    }
-
-    @Override
-    public Object visit(Cast n)
-    {
-        ps.print("((");
-        print(n.castType);
-        ps.print(")"+typ(n.type));
-        print(n.exp);
-        ps.print(")");
-        return null;
-    }
-
-    @Override
-    public Object visit(Case n)
-    {
-        String xtn = n.enclosingSwitch != null && printLinks ?
-                     "@"+n.enclosingSwitch.uniqueId : "";
-        tab();
-        ps.print("case"+xtn+" ");
-        print(n.exp);
-        ps.println(":");
-        return null;
-    }
-
     @Override
     public Object visit(ClassDecl n)
     {
@@ -210,20 +84,6 @@ public class PrettyPrintVisitor extends Visitor
         return null;
     }
 
-    @Override
-    public Object visit(Divide n)
-    {
-        binOp(n, "/");
-        return null;
-    }
-
-    @Override
-    public Object visit(Equals n)
-    {
-        binOp(n, "==");
-        return null;
-    }
-
     @Override
     public Object visit(False n)
     {
@@ -240,13 +100,6 @@ public class PrettyPrintVisitor extends Visitor
         return null;
     }
 
-    @Override
-    public Object visit(GreaterThan n)
-    {
-        binOp(n, ">");
-        return null;
-    }
-
     @Override
     public Object visit(IDExp n)
     {
@@ -263,40 +116,6 @@ public class PrettyPrintVisitor extends Visitor
         return null;
     }
 
-    @Override
-    public Object visit(If n)
-    {
-        tab();
-        ps.print("if(");
-        print(n.exp);
-        ps.println(")");
-        printMaybeBlock(n.trueStmt);
-        tab();
-        ps.println("else");
-        printMaybeBlock(n.falseStmt);
-        return null;
-    }
-
-    @Override
-    public Object visit(InstanceOf n)
-    {
-        ps.print("(");
-        print(n.exp);
-        ps.print(" instanceof "+typ(n.type));
-        print(n.checkType);
-        ps.print(")");
-        return null;
-    }
-
-    @Override
-    public Object visit(FieldAccess n)
-    {
-        print(n.exp);
-        String xtn = n.varDec != null && printLinks ? "@"+n.varDec.uniqueId : "";
-        ps.print("."+typ(n.type)+n.varName+xtn);
-        return null;
-    }
-
     @Override
     public Object visit(FieldDecl n)
     {
@@ -321,33 +140,10 @@ public class PrettyPrintVisitor extends Visitor
         return null;
     }
 
-    @Override
-    public Object visit(LessThan n)
-    {
-        binOp(n, "<");
-        return null;
-    }
-
-    public Object visit(LocalDeclStmt n)
-    {
-        tab();
-        print(n.localVarDecl);
-        ps.println(";");
-        return null;
-    }
-
-    public Object visit(LocalVarDecl n)
-    {
-        print(n.type);
-        String xtn = printLinks ? "#"+n.uniqueId : "";
-        ps.print(" "+n.name+xtn+" = ");
-        print(n.initExp);
-        return null;
-    }
-
     @Override
     public Object visit(MethodDeclVoid n)
     {
+        n.materialize();
         tab();
         String xtn = printLinks ? "#"+n.uniqueId : "";
         ps.print("public void "+n.name+xtn+"(");
@@ -378,6 +174,7 @@ public class PrettyPrintVisitor extends Visitor
     @Override
     public Object visit(MethodDeclNonVoid n)
     {
+        n.materialize();
         tab();
         ps.print("public ");
         print(n.rtnType);
@@ -411,54 +208,6 @@ public class PrettyPrintVisitor extends Visitor
         return null;
     }
 
-    @Override
-    public Object visit(Minus n)
-    {
-        binOp(n, "-");
-        return null;
-    }
-
-    @Override
-    public Object visit(NewArray n)
-    {
-        Type currType = n.objType;
-        int count = 0;
-        while (currType instanceof ArrayType)
-        {
-            currType = ((ArrayType)currType).baseType;
-            count++;
-        }
-        ps.print("new"+" ");
-        print(currType);
-        ps.print("[");
-        print(n.sizeExp);
-        ps.print("]");
-        for (int i = 0; i < count; i++)
-        {
-            ps.print("[]"+typ(n.type));
-        }
-        return null;
-    }
-
-    @Override
-    public Object visit(NewObject n)
-    {
-        ps.print("new ");
-        print(n.objType);
-        ps.print("()"+typ(n.type));
-        return null;
-    }
-
-    @Override
-    public Object visit(Not n)
-    {
-        ps.print("(");
-        ps.print("!");
-        print(n.exp);
-        ps.print(")"+typ(n.type));
-        return null;
-    }
-
     @Override
     public Object visit(Null n)
     {
@@ -479,20 +228,6 @@ public class PrettyPrintVisitor extends Visitor
         return null;
     }
 
-    @Override
-    public Object visit(Or n)
-    {
-        binOp(n, "||");
-        return null;
-    }
-
-    @Override
-    public Object visit(Plus n)
-    {
-        binOp(n, "+");
-        return null;
-    }
-
     @Override
     public Object visit(Program n)
     {
@@ -504,22 +239,25 @@ public class PrettyPrintVisitor extends Visitor
         else
         {
             print(n.classDecls);
-            if (verbose)
-            {
-                ps.println("=======================");
-                print(n.mainStmt);
-                ps.println("=====================================================================");
-                print(n.predefinedDecls);
-            }
+            printEpilogue(n);
         }
         return null;
     }
 
-    @Override
-    public Object visit(Remainder n)
+    /**
+     * Print what comes after a program's classes: in verbose mode, its
+     * main statement and the predefined classes.  Printing each class
+     * and then this prints the same as visiting the program.
+     */
+    public void printEpilogue(Program n)
     {
-        binOp(n, "%");
-        return null;
+        if (verbose)
+        {
+            ps.println("=======================");
+            print(n.mainStmt);
+            ps.println("=====================================================================");
+            print(n.predefinedDecls);
+        }
     }
 
     @Override
@@ -552,34 +290,6 @@ public class PrettyPrintVisitor extends Visitor
         return null;
     }
 
-    @Override
-    public Object visit(Switch n)
-    {
-        tab();
-        String xtn = printLinks ? "#"+n.uniqueId : "";
-        ps.print("switch"+xtn+" (");
-        indent();
-        print(n.exp);
-        ps.println(")");
-        tab();
-        ps.println("{");
-        indent();
-        if (n.stmts == null)
-        {
-            tab();
-            ps.println("??null??");
-        }
-        else
-        {
-            print(n.stmts);
-        }
-        unindent();
-        tab();
-        ps.println("}");
-        unindent();
-        return null;
-    }
-
     @Override
     public Object visit(This n)
     {
@@ -587,13 +297,6 @@ public class PrettyPrintVisitor extends Visitor
         return null;
     }
 
-    @Override
-    public Object visit(Times n)
-    {
-        binOp(n, "*");
-        return null;
-    }
-
     @Override
     public Object visit(True n)
     {
@@ -607,18 +310,6 @@ public class PrettyPrintVisitor extends Visitor
         ps.print("void");
         return null;
     }
-    @Override
-    public Object visit(While n)
-    {
-        tab();
-        String xtn = printLinks ? "#"+n.uniqueId : "";
-        ps.print("while"+xtn+"(");
-        print(n.exp);
-        ps.println(")");
-        printMaybeBlock(n.body);
-        return null;
-    }
-
 
     public void indent()
     {
@@ -644,7 +335,7 @@ public class PrettyPrintVisitor extends Visitor
         }
         else
         {
-            node.accept(this);
+            printer.walk(node);
         }
     }
 
@@ -734,17 +425,259 @@ public class PrettyPrintVisitor extends Visitor
         }
     }
 
-    private void printMaybeBlock(Stmt s)
+    private static String opString(BinExp n)
+    {
+        if (n instanceof And) return "&&";
+        if (n instanceof Or) return "||";
+        if (n instanceof Equals) return "==";
+        if (n instanceof LessThan) return "<";
+        if (n instanceof GreaterThan) return ">";
+        if (n instanceof Plus) return "+";
+        if (n instanceof Minus) return "-";
+        if (n instanceof Times) return "*";
+        if (n instanceof Divide) return "/";
+        return "%";
+    }
+
+    // Prints every expression, statement and type that has children with
+    // an explicit stack, so that nesting of any kind prints at any depth:
+    // the hooks print what comes before, between and after the children,
+    // which the walker visits in source order, and a missing child is
+    // printed as a hole.  Leaves and declarations are printed by their
+    // visit methods; declarations print their children through print()
+    // and hence through this walker again, but they do not nest.
+    private class Printer extends Traversal
     {
-        if(s instanceof Block)
+        // a child not to print, since its parent printed it already
+        private AstNode skip;
+
+        Printer()
         {
-            print(s);
+            setSourceOrder(true);
+            setHoles(true);
         }
-        else
+
+        @Override
+        protected boolean enter(AstNode n)
+        {
+            if (n == skip)
+            {
+                skip = null;
+                return false;
+            }
+            switch (n)
+            {
+                case BinExp b ->
+                    ps.print("(");
+                case Not u ->
+                    ps.print("(!");
+                case ArrayLength u -> { }
+                case ArrayLookup a -> { }
+                case Call c -> { }
+                case Cast c ->
+                    ps.print("((");
+                case FieldAccess f -> { }
+                case InstanceOf i ->
+                    ps.print("(");
+                case NewArray a ->
+                {
+                    // only the element type is printed, ahead of the size
+                    Type base = a.objType;
+                    while (base instanceof ArrayType t)
+                    {
+                        base = t.baseType;
+                    }
+                    ps.print("new"+" ");
+                    if (base == null) ps.print("??null??");
+                    else              base.accept(PrettyPrintVisitor.this);
+                    ps.print("[");
+                    if (a.objType != null) skip = a.objType;
+                }
+                case NewObject o ->
+                    ps.print("new ");
+                case ArrayType t -> { }
+                case Assign a ->
+                    tab();
+                case CallStmt c ->
+                    tab();
+                case LocalDeclStmt l ->
+                    tab();
+                case LocalVarDecl v -> { }
+                case Case c ->
+                {
+                    String xtn = c.enclosingSwitch != null && printLinks ?
+                                 "@"+c.enclosingSwitch.uniqueId : "";
+                    tab();
+                    ps.print("case"+xtn+" ");
+                }
+                case Block b ->
+                {
+                    tab();
+                    ps.println("{");
+                    indent();
+                }
+                case If i ->
+                {
+                    tab();
+                    ps.print("if(");
+                }
+                case While w ->
+                {
+                    tab();
+                    String xtn = printLinks ? "#"+w.uniqueId : "";
+                    ps.print("while"+xtn+"(");
+                }
+                case Switch w ->
+                {
+                    tab();
+                    String xtn = printLinks ? "#"+w.uniqueId : "";
+                    ps.print("switch"+xtn+" (");
+                    indent();
+                }
+                default ->
+                {
+                    n.accept(PrettyPrintVisitor.this);
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        protected void between(AstNode n, int i)
+        {
+            switch (n)
+            {
+                case BinExp b      -> ps.print(opString(b));
+                case ArrayLookup a -> ps.print("[");
+                case Call c        -> { if (i == 0) callName(c); else ps.print(","); }
+                case Cast c        -> ps.print(")"+typ(c.type));
+                case InstanceOf f  -> ps.print(" instanceof "+typ(f.type));
+                case Assign a      -> ps.print(" = ");
+                case LocalVarDecl v ->
+                {
+                    String xtn = printLinks ? "#"+v.uniqueId : "";
+                    ps.print(" "+v.name+xtn+" = ");
+                }
+                case If f when i == 0 ->
+                {
+                    ps.println(")");
+                    if (!(f.trueStmt instanceof Block)) indent();
+                }
+                case If f ->
+                {
+                    if (!(f.trueStmt instanceof Block)) unindent();
+                    tab();
+                    ps.println("else");
+                    if (!(f.falseStmt instanceof Block)) indent();
+                }
+                case While w ->
+                {
+                    ps.println(")");
+                    if (!(w.body instanceof Block)) indent();
+                }
+                case Switch w when i == 0 -> switchBody();
+                default -> { }
+            }
+        }
+
+        @Override
+        protected void exit(AstNode n)
         {
+            switch (n)
+            {
+                case BinExp b      -> ps.print(")"+typ(b.type));
+                case Not u         -> ps.print(")"+typ(u.type));
+                case ArrayLength u -> ps.print(".length"+typ(u.type));
+                case ArrayLookup a -> ps.print("]"+typ(a.type));
+                case Call c ->
+                {
+                    if (c.args != null && c.args.isEmpty()) callName(c);
+                    ps.print(")"+typ(c.type));
+                }
+                case Cast c       -> ps.print(")");
+                case FieldAccess f ->
+                {
+                    String xtn = f.varDec != null && printLinks ? "@"+f.varDec.uniqueId : "";
+                    ps.print("."+typ(f.type)+f.varName+xtn);
+                }
+                case InstanceOf f -> ps.print(")");
+                case NewArray a ->
+                {
+                    ps.print("]");
+                    for (Type t = a.objType; t instanceof ArrayType at; t = at.baseType)
+                    {
+                        ps.print("[]"+typ(a.type));
+                    }
+                }
+                case NewObject o   -> ps.print("()"+typ(o.type));
+                case ArrayType t   -> ps.print("[]");
+                case Assign a      -> ps.println(";");
+                case CallStmt c    -> ps.println(";");
+                case LocalDeclStmt l -> ps.println(";");
+                case Case c        -> ps.println(":");
+                case Block b ->
+                {
+                    unindent();
+                    tab();
+                    ps.println("}");
+                }
+                case If f ->
+                {
+                    if (!(f.falseStmt instanceof Block)) unindent();
+                }
+                case While w ->
+                {
+                    if (!(w.body instanceof Block)) unindent();
+                }
+                case Switch w ->
+                {
+                    if (w.stmts != null && w.stmts.isEmpty()) switchBody();
+                    unindent();
+                    tab();
+                    ps.println("}");
+                    unindent();
+                }
+                default -> { }
+            }
+        }
+
+        @Override
+        protected void hole(AstNode n, int i)
+        {
+            switch (n)
+            {
+                // printed ahead of the size already
+                case NewArray a when i == 0 -> { }
+                // a missing list of statements
+                case Block b ->
+                {
+                    tab();
+                    ps.println("??null??");
+                }
+                case Switch w when i == 1 ->
+                {
+                    tab();
+                    ps.println("??null??");
+                }
+                default -> ps.print("??null??");
+            }
+        }
+
+        // what comes between a call's object and its arguments
+        private void callName(Call c)
+        {
+            String xtn = c.methodLink != null && printLinks ? "@"+c.methodLink.uniqueId : "";
+            ps.print("."+c.methName+xtn+"(");
+        }
+
+        // what comes between a switch's expression and its statements
+        private void switchBody()
+        {
+            ps.println(")");
+            tab();
+            ps.println("{");
             indent();
-            print(s);
-            unindent();
         }
     }
 }
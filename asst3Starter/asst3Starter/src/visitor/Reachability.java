@@ -0,0 +1,222 @@
+package visitor;
+
+import errorMsg.*;
+import java.util.*;
+import syntaxtree.*;
+
+// The purpose of this class is to find the classes and methods that a
+// run of the program can use, starting from the main statement, and to
+// drop the others from the tree before Sem3 (for -prune).  It runs once
+// Sem2 has linked the class hierarchy and built the method tables.
+// It is a rapid type analysis, working on names since nothing is typed
+// yet:
+// - a class is instantiated if a reachable method creates one
+// - a method name is called if a reachable method calls it
+// - a method is reachable if it is what some called name resolves to
+//   (lookupMethod) in some instantiated class, or what a called name
+//   resolves to in the superclass of a reachable method calling it on
+//   'super'
+// - a class is live if it is instantiated, named as a type by a live
+//   class or a reachable method, or the superclass of a live class; the
+//   types of a live class's fields are live as well
+// A class that is not live is removed along with all of its subclasses
+// (which cannot be live either) and reported as unused; a live class
+// keeps only its reachable methods.  Its fields are all kept, and its
+// method table is left alone, so calls still resolve as before.
+public class Reachability extends Traversal
+{
+    HashMap<String,ClassDecl> classEnv;
+    ErrorMsg errorMsg;
+
+    // what has been found about each class and method (the bits below);
+    // nodes compare equal by structure, so they are not kept in sets
+    private static final int LIVE = 1;
+    private static final int INSTANTIATED = 2;
+    private static final int REACHED = 4;
+    private IntNodeTable marks;
+
+    private ArrayList<ClassDecl> instantiated;
+    private HashSet<String> called;
+
+    // reachable methods whose bodies have not been looked at yet, and
+    // live classes whose fields have not
+    private ArrayDeque<MethodDecl> work;
+    private ArrayDeque<ClassDecl> classWork;
+
+    // the class of the method being looked at (null for the main statement)
+    private ClassDecl current;
+
+    private int classesPruned;
+    private int methodsPruned;
+
+    public Reachability(HashMap<String,ClassDecl> env, ErrorMsg e)
+    {
+        classEnv = env;
+        errorMsg = e;
+        marks = new IntNodeTable(NodeIds.current(), 0);
+        instantiated = new ArrayList<ClassDecl>();
+        called = new HashSet<String>();
+        work = new ArrayDeque<MethodDecl>();
+        classWork = new ArrayDeque<ClassDecl>();
+        current = null;
+        classesPruned = 0;
+        methodsPruned = 0;
+    }
+
+    /**
+     * @return the number of classes removed
+     */
+    public int getClassesPruned()
+    {
+        return classesPruned;
+    }
+
+    /**
+     * @return the number of methods removed from live classes
+     */
+    public int getMethodsPruned()
+    {
+        return methodsPruned;
+    }
+
+    /**
+     * Find what the program can use, and remove the rest.
+     *
+     * @param p the program
+     */
+    public void prune(Program p)
+    {
+        // the predefined classes are never removed
+        for(ClassDecl c : p.predefinedDecls)
+        {
+            markLive(c);
+        }
+        current = null;
+        walk(p.mainStmt);
+        while(!work.isEmpty() || !classWork.isEmpty())
+        {
+            if(!classWork.isEmpty())
+            {
+                current = null;
+                for(Decl d : classWork.pop().decls)
+                {
+                    if(d instanceof FieldDecl) walk(((FieldDecl)d).type);
+                }
+            }
+            else
+            {
+                MethodDecl m = work.pop();
+                current = m.classDecl;
+                walk(m);
+            }
+        }
+
+        ClassDeclList kept = new ClassDeclList();
+        for(ClassDecl c : p.classDecls)
+        {
+            if(!has(c, LIVE))
+            {
+                errorMsg.warning(c.pos, CompWarning.UnusedClass(c.name));
+                if(classEnv.get(c.name) == c) classEnv.remove(c.name);
+                if(c.superLink != null) removeSubclass(c.superLink, c);
+                classesPruned++;
+                continue;
+            }
+            kept.add(c);
+            DeclList decls = new DeclList();
+            for(Decl d : c.decls)
+            {
+                if(d instanceof MethodDecl && !has(d, REACHED))
+                {
+                    methodsPruned++;
+                    continue;
+                }
+                decls.add(d);
+            }
+            c.decls = decls;
+        }
+        p.classDecls = kept;
+    }
+
+    @Override
+    protected boolean enter(AstNode n)
+    {
+        switch(n)
+        {
+            case IDType t    -> markLive(classEnv.get(t.name));
+            case NewObject o -> markInstantiated(classEnv.get(o.objType.name));
+            case Call c      ->
+            {
+                if(c.obj instanceof Super && current != null)
+                {
+                    reach(MethodTableBuilder.lookupMethod(current.superLink, c.methName));
+                }
+                markCalled(c.methName);
+            }
+            default -> { }
+        }
+        return true;
+    }
+
+    private void markLive(ClassDecl c)
+    {
+        for(; c != null && mark(c, LIVE); c = c.superLink)
+        {
+            classWork.push(c);
+        }
+    }
+
+    private void markInstantiated(ClassDecl c)
+    {
+        if(c == null || !mark(c, INSTANTIATED)) return;
+        markLive(c);
+        instantiated.add(c);
+        if(c.vtableIndex == null) return;
+        for(String name : c.vtableIndex.keySet())
+        {
+            if(called.contains(name)) reach(MethodTableBuilder.lookupMethod(c, name));
+        }
+    }
+
+    private void markCalled(String name)
+    {
+        if(!called.add(name)) return;
+        for(ClassDecl c : instantiated)
+        {
+            reach(MethodTableBuilder.lookupMethod(c, name));
+        }
+    }
+
+    private void reach(MethodDecl m)
+    {
+        if(m != null && mark(m, REACHED)) work.push(m);
+    }
+
+    private boolean has(AstNode n, int bit)
+    {
+        return (marks.get(n) & bit) != 0;
+    }
+
+    // set a bit, returning whether it was clear
+    private boolean mark(AstNode n, int bit)
+    {
+        int old = marks.get(n);
+        if((old & bit) != 0) return false;
+        marks.put(n, old | bit);
+        return true;
+    }
+
+    // remove a class from its superclass's subclasses, by identity
+    private static void removeSubclass(ClassDecl sup, ClassDecl c)
+    {
+        ClassDeclList subs = sup.subclasses;
+        for(int i = 0; i < subs.size(); i++)
+        {
+            if(subs.get(i) == c)
+            {
+                subs.remove(i);
+                return;
+            }
+        }
+    }
+}
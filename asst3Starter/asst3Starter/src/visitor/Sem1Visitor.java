@@ -28,6 +28,18 @@ public class Sem1Visitor extends Visitor
         classEnv     = InitPredefined.initEnv(classes);
     }
 
+    /**
+     * Create a visitor for building the environments of single classes
+     * (see buildClass) against an existing global environment.
+     */
+    Sem1Visitor(ErrorMsg e, HashMap<String,ClassDecl> env)
+    {
+        errorMsg     = e;
+        currentClass = null;
+        classes      = null;
+        classEnv     = env;
+    }
+
     public HashMap<String,ClassDecl> getEnv()
     {
         return classEnv;
@@ -48,6 +60,20 @@ public class Sem1Visitor extends Visitor
         return null;
     }
 
+    /**
+     * Fill in the field and method environments of one class without
+     * entering the class itself into the global environment.
+     *
+     * @param n the class
+     */
+    void buildClass(ClassDecl n)
+    {
+        ClassDecl savedClass = currentClass;
+        currentClass = n;
+        n.decls.accept(this);
+        currentClass = savedClass;
+    }
+
     @Override 
     public Object visit(ClassDecl n){
         // check for duplicate 
@@ -11,11 +11,14 @@ import syntaxtree.*;
 //    (via the 'subclasses' instance variable)
 // - ensure that there are no cycles in the inheritance hierarchy
 // - ensure that no class has 'String' or 'RunMain' as its superclass
+// - build the class hierarchy index (depth, pre/post-order numbers and
+//   ancestor arrays of every class)
 public class Sem2Visitor extends Visitor
 {
 
     HashMap<String,ClassDecl> classEnv;
     ErrorMsg errorMsg;
+    ClassHierarchy hierarchy;
 
     public Sem2Visitor(HashMap<String,ClassDecl> env, ErrorMsg e)
     {
@@ -23,6 +26,14 @@ public class Sem2Visitor extends Visitor
         classEnv = env;
     }
 
+    /**
+     * @return the class hierarchy index built by visit(Program)
+     */
+    public ClassHierarchy getHierarchy()
+    {
+        return hierarchy;
+    }
+
     @Override
     public Object visit(Program p){
         // link every class to its superclass
@@ -30,9 +41,13 @@ public class Sem2Visitor extends Visitor
             visit(n);
         }
 
-        // cycle detection over same list
+        // number the classes from the roots down; a class that can't be
+        // reached from a class without a superclass has a cycle above it
+        hierarchy = ClassHierarchy.build(classEnv, p);
         for(ClassDecl n : p.classDecls){
-            detectCycle(n);
+            if(!ClassHierarchy.isIndexed(n)){
+                errorMsg.error(n.pos, CompError.InheritanceCycle(n.name));
+            }
         }
 
         return null;
@@ -64,19 +79,4 @@ public class Sem2Visitor extends Visitor
         return null;
     }
 
-    private void detectCycle(ClassDecl n){
-        HashSet<ClassDecl> visited = new HashSet<>();
-        ClassDecl curr = n;
-
-        while(curr != null && !curr.superName.equals("")){
-            // if seen this node before, found cycle
-            if(visited.contains(curr)){
-                errorMsg.error(n.pos, CompError.InheritanceCycle(n.name));
-                return;
-            }
-            visited.add(curr);
-            curr = curr.superLink;
-        }
-    }
-
 }
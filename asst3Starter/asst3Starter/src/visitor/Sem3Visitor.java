@@ -11,6 +11,8 @@ import syntaxtree.*;
 //   - undefined type names are reported
 // - link each Break expression to its enclosing While or Case statement
 //   - a break that is not inside any while loop or case is reported
+// - link each method call to the method it calls (via its 'methodLink'),
+//   when the class of the object is known without type checking
 // - report conflicting local variable names (including formal parameter names)
 // - ensure that no instance variable has the name 'length'
 public class Sem3Visitor extends Visitor
@@ -40,6 +42,21 @@ public class Sem3Visitor extends Visitor
     //error message object
     ErrorMsg errorMsg;
 
+    // largest localEnv seen in any method
+    int peakLocalEnvSize;
+
+    // parameters and locals bound in the current class
+    int localsBound;
+
+    // where to record bound references, if anywhere
+    XrefIndex.Builder xref;
+
+    // walks method bodies and expressions without recursion
+    Traversal walker;
+
+    // the switches being bound, innermost on top
+    ArrayDeque<SwitchScan> switches;
+
     // constructor
     public Sem3Visitor(HashMap<String,ClassDecl> env, ErrorMsg e)
     {
@@ -48,10 +65,73 @@ public class Sem3Visitor extends Visitor
         classEnv         = env;
         localEnv         = new HashMap<String,VarDecl>();
         breakTargetStack = new Stack<BreakTarget>();
+        peakLocalEnvSize = 0;
+        walker           = new Walker();
+        switches         = new ArrayDeque<SwitchScan>();
     }
 
- @Override
+    /**
+     * Record every reference bound from now on into an index builder.
+     *
+     * @param b the builder, or null to stop recording
+     */
+    public void setXref(XrefIndex.Builder b)
+    {
+        xref = b;
+    }
+
+    /**
+     * @return the largest number of names in scope at once in any method
+     */
+    public int getPeakLocalEnvSize()
+    {
+        return peakLocalEnvSize;
+    }
+
+    /**
+     * Bind a single declaration of a class, as if it were visited from
+     * the class.  Used when a large class is split across tasks, whose
+     * ClassBindEvent is then the caller's to emit.
+     *
+     * @param c the class containing the declaration
+     * @param d the declaration
+     */
+    public void bindDecl(ClassDecl c, Decl d)
+    {
+        ClassDecl saved = currentClass;
+        currentClass = c;
+        d.accept(this);
+        currentClass = saved;
+    }
+
+    /**
+     * Bind a statement or expression and everything below it.  Statements
+     * and expressions are walked by a Traversal, so nesting depth is not
+     * limited by the Java stack.
+     */
+    public void bind(AstNode n)
+    {
+        walker.walk(n);
+    }
+
+    void bind(AstList lst)
+    {
+        walker.walk(lst);
+    }
+
+    @Override
+    public Object visit(Program n){
+        n.classDecls.accept(this);
+        bind(n.mainStmt);
+        return null;
+    }
+
+    @Override
     public Object visit(ClassDecl n){
+        ClassBindEvent event = new ClassBindEvent();
+        event.begin();
+        localsBound = 0;
+
         // track the current class we're inside
         ClassDecl saved = currentClass;
         currentClass = n;
@@ -61,11 +141,28 @@ public class Sem3Visitor extends Visitor
 
         // restore previous class context when leaving
         currentClass = saved;
+
+        classBound(event, n, localsBound);
         return null;
     }
 
+    // end the event of a class that has been bound, and commit it
+    static void classBound(ClassBindEvent event, ClassDecl n, int locals){
+        event.end();
+        if(event.shouldCommit()){
+            event.className = n.name;
+            event.methods = n.methodEnv.size();
+            event.fields = n.fieldEnv.size();
+            event.locals = locals;
+            event.commit();
+        }
+    }
+
     @Override
     public Object visit(MethodDecl n){
+        // parse the body, if parsing it was put off
+        n.materialize();
+
         // save outer scope and create a fresh local environment for this method
         HashMap<String,VarDecl> savedEnv = localEnv;
         localEnv = new HashMap<>();
@@ -73,16 +170,9 @@ public class Sem3Visitor extends Visitor
         // track which variables are assigned a value
         init = new HashSet<>();
 
-        // load all fields from this class and its superclasses
-        ClassDecl c = currentClass;
-        ArrayList<ClassDecl> chain = new ArrayList<>();
-        while (c != null){
-            chain.add(0, c);
-            c = c.superLink;
-        }
-
-        // load all fields from the inheritance chain into local scope
-        for(ClassDecl cls : chain){
+        // load all fields from the inheritance chain into local scope,
+        // superclasses first
+        for(ClassDecl cls : inheritanceChain(currentClass)){
             for(FieldDecl f : cls.fieldEnv.values()){
                 localEnv.put(f.name, f);
             }
@@ -101,9 +191,11 @@ public class Sem3Visitor extends Visitor
                 localEnv.put(p.name, p);
                 init.add(p.name);
             }
+            localsBound++;
         }
         // visit all statements in method body
-        n.stmts.accept(this);
+        peakLocalEnvSize = Math.max(peakLocalEnvSize, localEnv.size());
+        bind(n.stmts);
 
         // restore the outer environment
         localEnv = savedEnv;
@@ -112,6 +204,7 @@ public class Sem3Visitor extends Visitor
     
     @Override
     public Object visit(MethodDeclNonVoid n){
+        n.materialize();
         n.rtnType.accept(this);
 
         // save the outer scope 
@@ -122,10 +215,7 @@ public class Sem3Visitor extends Visitor
         init = new HashSet<>();
 
         // loading fields into localEnv so subclass fields shadow superclass fields
-        ClassDecl c = currentClass;
-        ArrayList<ClassDecl> chain = new ArrayList<>();
-        while (c != null) { chain.add(0, c); c = c.superLink; }
-        for (ClassDecl cls : chain)
+        for (ClassDecl cls : inheritanceChain(currentClass))
             for (FieldDecl f : cls.fieldEnv.values())
                 localEnv.put(f.name, f);
 
@@ -138,15 +228,28 @@ public class Sem3Visitor extends Visitor
             else
                 localEnv.put(p.name, p);
                 init.add(p.name);
+            localsBound++;
         }
 
-        n.stmts.accept(this);
-        n.rtnExp.accept(this);  
+        peakLocalEnvSize = Math.max(peakLocalEnvSize, localEnv.size());
+        bind(n.stmts);
+        bind(n.rtnExp);
 
         localEnv = savedEnv;
         return null;
     }
 
+    // the class and its superclasses, root first
+    private List<ClassDecl> inheritanceChain(ClassDecl c){
+        ArrayList<ClassDecl> chain = new ArrayList<>();
+        while (c != null){
+            chain.add(c);
+            c = c.superLink;
+        }
+        Collections.reverse(chain);
+        return chain;
+    }
+
     @Override
     public Object visit(IDType n){
          // look up the class name in the global class environment
@@ -157,6 +260,7 @@ public class Sem3Visitor extends Visitor
         }
         else{
             n.link = classD;
+            if(xref != null) xref.add(classD, n);
         }
         return null;
     }
@@ -171,6 +275,7 @@ public class Sem3Visitor extends Visitor
         }
         else{
             n.link = varD;
+            if(xref != null) xref.add(varD, n);
             // check if local/param was initialized 
             if (!(varD instanceof FieldDecl) && init != null && !init.contains(n.name)){
                 errorMsg.error(n.pos, CompError.UninitializedVariable(n.name));
@@ -179,9 +284,46 @@ public class Sem3Visitor extends Visitor
         return null;
     }
 
+    @Override
+    public Object visit(Call n){
+        bind(n);
+        return null;
+    }
+
+    // called once the object and arguments of a call have been bound
+    private void resolveCall(Call n){
+        // look the method up in the flattened method table of the object's class
+        MethodDecl m = MethodTableBuilder.lookupMethod(staticClass(n.obj), n.methName);
+        if(m != null){
+            n.methodLink = m;
+            if(xref != null) xref.add(m, n);
+        }
+    }
+
+    // the class of an object expression, if known before type checking
+    private ClassDecl staticClass(Exp e){
+        if (e instanceof This){
+            return currentClass;
+        }
+        else if (e instanceof Super){
+            return currentClass == null ? null : currentClass.superLink;
+        }
+        else if (e instanceof NewObject no){
+            return classEnv.get(no.objType.name);
+        }
+        else if (e instanceof Cast c && c.castType instanceof IDType t){
+            return classEnv.get(t.name);
+        }
+        else if (e instanceof IDExp id && id.link != null && id.link.type instanceof IDType t){
+            return classEnv.get(t.name);
+        }
+        return null;
+    }
+
     @Override
     public Object visit(LocalVarDecl n){
         n.type.accept(this);
+        localsBound++;
 
         if (localEnv.containsKey(n.name)){
             VarDecl existing = localEnv.get(n.name);
@@ -196,8 +338,9 @@ public class Sem3Visitor extends Visitor
         else{
             localEnv.put(n.name, n);
         }
+        peakLocalEnvSize = Math.max(peakLocalEnvSize, localEnv.size());
         
-        n.initExp.accept(this);
+        bind(n.initExp);
 
         // mark as initialized
         if (init != null) init.add(n.name);
@@ -208,17 +351,43 @@ public class Sem3Visitor extends Visitor
     // while loop
     @Override
     public Object visit(While n){
-        n.exp.accept(this);
-        breakTargetStack.push(n);
-        n.body.accept(this);
-        breakTargetStack.pop();
+        // the Enter and Exit hooks push and pop the break target
+        bind(n);
         return null;
     }
 
-    // switch statement 
+    // switch statement: the Walker checks its statements as it reaches
+    // them, and the Enter and Exit hooks start and finish the checks
     @Override
     public Object visit(Switch n){
-        n.exp.accept(this);
+        bind(n);
+        return null;
+    }
+
+    // what is known about a switch being bound: how many of its own
+    // statements have been reached, and what they held
+    private static class SwitchScan {
+        final Switch sw;
+        int next = 0;
+        boolean seenDefault = false;
+
+        // the constant case keys and the positions of their cases, in order
+        int numKeys = 0;
+        int[] keys = new int[16];
+        int[] keyPos = new int[16];
+
+        // variables declared in the current chunk
+        ArrayList<String> chunkVars = new ArrayList<>();
+
+        SwitchScan(Switch n){
+            sw = n;
+        }
+    }
+
+    // start binding a switch statement
+    private void beginSwitch(Switch n){
+        // the expression cannot contain a break, so the target can be
+        // pushed before it is bound
         breakTargetStack.push(n);
 
         // first statement must be a label
@@ -231,73 +400,96 @@ public class Sem3Visitor extends Visitor
             errorMsg.error(n.pos, CompError.EndBreakSwitch());
         }
 
-        boolean seenDefault  = false;
-        boolean prevWasBreak = false;
-        HashSet<Integer> seenKeys = new HashSet<>();
-
-        for (int i = 0; i < n.stmts.size(); i++){
-            Stmt s = n.stmts.get(i);
+        switches.push(new SwitchScan(n));
+    }
 
-            if (s instanceof Default){
-                if (seenDefault){
-                    errorMsg.error(s.pos, CompError.DuplicateDefaultSwitch());
-                }
-                seenDefault  = true;
-                prevWasBreak = false;
+    // check a statement of the innermost switch, before it is bound
+    private void switchStmt(SwitchScan w, Stmt s){
+        if (s instanceof Default){
+            if (w.seenDefault){
+                errorMsg.error(s.pos, CompError.DuplicateDefaultSwitch());
             }
-            else if (s instanceof Case c){
-                // case expression must be a constant
-                if (!(c.exp instanceof IntLit)){
-                    errorMsg.error(c.pos, CompError.NonConstantCase());
-                }
-                else
-                {
-                    // no duplicate case values
-                    int val = ((IntLit) c.exp).val;
-                    if (seenKeys.contains(val)){
-                        errorMsg.error(c.pos, CompError.DuplicateKeySwitch());
-                    }
-                    else{
-                        seenKeys.add(val);
-                    }
-                }
-                prevWasBreak = false;
-            }
-            else if (s instanceof Break){
-                prevWasBreak = true;
+            w.seenDefault = true;
+        }
+        else if (s instanceof Case c){
+            // case expression must be a constant
+            if (!(c.exp instanceof IntLit)){
+                errorMsg.error(c.pos, CompError.NonConstantCase());
             }
             else{
-                prevWasBreak = false;
+                if (w.numKeys == w.keys.length){
+                    w.keys = Arrays.copyOf(w.keys, 2 * w.numKeys);
+                    w.keyPos = Arrays.copyOf(w.keyPos, 2 * w.numKeys);
+                }
+                w.keys[w.numKeys] = ((IntLit) c.exp).val;
+                w.keyPos[w.numKeys] = c.pos;
+                w.numKeys++;
             }
         }
 
-        // track variables declared in the current chunk
-        ArrayList<String> chunkVars = new ArrayList<>();
+        if (s instanceof Break){
+            // end of chunk, remove all variables declared in this chunk
+            for (String varName : w.chunkVars){
+                localEnv.remove(varName);
+            }
+            w.chunkVars.clear();
+        }
+        else if (s instanceof LocalDeclStmt lds){
+            // track this variable as belonging to the current chunk
+            w.chunkVars.add(lds.localVarDecl.name);
+        }
+    }
 
-        for (int i = 0; i < n.stmts.size(); i++){
-            Stmt s = n.stmts.get(i);
+    // finish binding a switch statement, once all of it is bound
+    private void endSwitch(Switch n){
+        SwitchScan w = switches.pop();
 
-            if (s instanceof Break){
-                // end of chunk, remove all variables declared in this chunk
-                for (String varName : chunkVars){
-                    localEnv.remove(varName);
-                }
-                chunkVars.clear();
-                s.accept(this);
-            }
-            else if (s instanceof LocalDeclStmt lds){
-                s.accept(this);
+        // no duplicate case values
+        analyzeKeys(n, w.keys, w.keyPos, w.numKeys);
 
-                // track this variable as belonging to the current chunk
-                chunkVars.add(lds.localVarDecl.name);
+        breakTargetStack.pop();
+    }
+
+    // Sort the case keys of a switch, report every case that repeats an
+    // earlier key, and record the key range and density on the switch.
+    private void analyzeKeys(Switch n, int[] keys, int[] keyPos, int numKeys){
+        // key in the high half, case index in the low half: sorting puts
+        // equal keys together, earliest case first
+        long[] order = new long[numKeys];
+        for (int i = 0; i < numKeys; i++){
+            order[i] = ((long) keys[i] << 32) | i;
+        }
+        Arrays.sort(order);
+
+        int[] distinct = new int[numKeys];
+        int numDistinct = 0;
+        for (int i = 0; i < numKeys; i++){
+            int key = (int) (order[i] >> 32);
+            if (numDistinct > 0 && distinct[numDistinct - 1] == key){
+                errorMsg.error(keyPos[(int) order[i]], CompError.DuplicateKeySwitch());
             }
             else{
-                s.accept(this);
+                distinct[numDistinct++] = key;
             }
         }
 
-        breakTargetStack.pop();
-        return null;
+        n.keys = Arrays.copyOf(distinct, numDistinct);
+        if (numDistinct == 0){
+            n.minKey = 0;
+            n.maxKey = 0;
+            n.keyDensity = 0;
+            n.tableSwitch = false;
+            return;
+        }
+        n.minKey = n.keys[0];
+        n.maxKey = n.keys[numDistinct - 1];
+        long range = (long) n.maxKey - n.minKey + 1;
+        n.keyDensity = (double) numDistinct / range;
+
+        // the same space/time trade-off javac uses to pick a tableswitch
+        long tableCost = 4 + range + 3 * 3;
+        long lookupCost = 3 + 2L * numDistinct + 3L * numDistinct;
+        n.tableSwitch = tableCost <= lookupCost;
     }
 
     // break statement for switch
@@ -315,6 +507,13 @@ public class Sem3Visitor extends Visitor
     // for switch label
     @Override
     public Object visit(Case n){
+        findSwitch(n);
+        bind(n.exp);
+        return null;
+    }
+
+    // link a case label to the nearest enclosing switch
+    private void findSwitch(Case n){
         // go through stack to find nearest switch
         for(int i = breakTargetStack.size() - 1; i >= 0; i--){
             if(breakTargetStack.get(i) instanceof Switch s){
@@ -322,8 +521,6 @@ public class Sem3Visitor extends Visitor
                 break;
             }
         }
-        n.exp.accept(this);
-        return null;
     }
 
     // for switch label
@@ -338,4 +535,98 @@ public class Sem3Visitor extends Visitor
         }
         return null;
     }
-}
\ No newline at end of file
+
+    // hooks run by the walker before a node's children: nodes that bind
+    // their own children return Traversal.SKIP
+    private class Enter extends Traversal.Hooks
+    {
+        @Override
+        public Object visit(IDType n){
+            return Sem3Visitor.this.visit(n);
+        }
+
+        @Override
+        public Object visit(IDExp n){
+            return Sem3Visitor.this.visit(n);
+        }
+
+        @Override
+        public Object visit(LocalVarDecl n){
+            Sem3Visitor.this.visit(n);
+            return Traversal.SKIP;
+        }
+
+        @Override
+        public Object visit(While n){
+            // the condition cannot contain a break, so the target can be
+            // pushed before it is bound
+            breakTargetStack.push(n);
+            return null;
+        }
+
+        @Override
+        public Object visit(Switch n){
+            beginSwitch(n);
+            return null;
+        }
+
+        @Override
+        public Object visit(Break n){
+            return Sem3Visitor.this.visit(n);
+        }
+
+        @Override
+        public Object visit(Case n){
+            // the walker binds the expression
+            findSwitch(n);
+            return null;
+        }
+
+        @Override
+        public Object visit(Default n){
+            return Sem3Visitor.this.visit(n);
+        }
+    }
+
+    // hooks run by the walker after a node's children
+    private class Exit extends Traversal.Hooks
+    {
+        @Override
+        public Object visit(While n){
+            breakTargetStack.pop();
+            return null;
+        }
+
+        @Override
+        public Object visit(Switch n){
+            endSwitch(n);
+            return null;
+        }
+
+        @Override
+        public Object visit(Call n){
+            resolveCall(n);
+            return null;
+        }
+    }
+
+    // the walker: runs the hooks, and has the innermost switch check each
+    // of its own statements as it is reached (nothing below a statement
+    // can be the switch's next statement)
+    private class Walker extends Traversal
+    {
+        Walker(){
+            super(new Enter(), new Exit());
+        }
+
+        @Override
+        protected boolean enter(AstNode n){
+            SwitchScan w = switches.peek();
+            if (w != null && w.next < w.sw.stmts.size() && w.sw.stmts.get(w.next) == n){
+                w.next++;
+                switchStmt(w, (Stmt) n);
+            }
+            return super.enter(n);
+        }
+    }
+}
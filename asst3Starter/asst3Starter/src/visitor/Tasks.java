@@ -0,0 +1,38 @@
+package visitor;
+
+import java.util.concurrent.*;
+
+// The purpose of this class is to hold what the passes that run on a
+// fork-join pool (ParallelSem1, ParallelSem3, ParallelPrettyPrinter)
+// share about waiting for their tasks.
+final class Tasks
+{
+    private Tasks()
+    {
+    }
+
+    /**
+     * Wait for a task, rethrowing whatever it threw.
+     */
+    static <T> T join(Future<T> f)
+    {
+        try
+        {
+            return f.get();
+        }
+        catch(ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if(cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            throw new RuntimeException(cause);
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+}
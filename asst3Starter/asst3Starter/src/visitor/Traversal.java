@@ -0,0 +1,459 @@
+package visitor;
+
+import java.util.Arrays;
+import syntaxtree.*;
+
+// The purpose of this class is to walk an AST with bounded recursion, so
+// that machine-generated programs nested tens of thousands of levels deep
+// do not overflow the Java stack.
+// - the top MAX_RECURSION levels of a walk are walked recursively, which
+//   is fastest for typical trees; the subtrees below them are walked with
+//   an explicit stack of the nodes still to be visited
+// - children are walked in the same order as the default traversal of
+//   Visitor, or in source order if asked (see setSourceOrder); lists are
+//   not nodes, their elements are walked in order
+// - the hooks enter, between and exit are called on each node: enter
+//   before its children (returning false skips them), between after each
+//   child but the last, and exit after its children (unless they were
+//   skipped)
+// - missing children (null nodes and lists) are left out, or if asked
+//   (see setHoles) walked as holes, with the hook hole in their place
+// The hooks can be overridden directly, or given as hook visitors (see
+// Hooks), so that each node kind gets its own pre and post hook.
+public class Traversal
+{
+    // returned by a pre hook to skip the node's children
+    public static final Object SKIP = new Object();
+
+    // levels walked recursively before switching to the explicit stack
+    static final int MAX_RECURSION = 200;
+
+    // what a stack entry is waiting for
+    private static final byte ENTER = 0;
+    private static final byte BETWEEN = 1;
+    private static final byte EXIT = 2;
+    private static final byte HOLE = 3;
+
+    private Visitor pre;
+    private Visitor post;
+
+    // the explicit stack; between entries also hold the child index
+    private AstNode[] nodes;
+    private byte[] states;
+    private int[] indices;
+    private int sp;
+
+    // current recursion depth
+    private int depth;
+
+    // in recursive mode, the node whose children are being walked, and
+    // the number of them walked so far
+    private AstNode parent;
+    private int index;
+
+    // children of the node being entered, when they are collected
+    // rather than walked at once
+    private AstNode[] buf;
+    private int count;
+    private boolean collecting;
+
+    // whether children are walked in the order they appear in the source
+    private boolean sourceOrder;
+
+    // whether missing children are walked as holes
+    private boolean holes;
+
+    public Traversal()
+    {
+        this(null, null);
+    }
+
+    /**
+     * @param pre the visitor run on each node before its children, or null
+     * @param post the visitor run on each node after its children, or null
+     */
+    public Traversal(Visitor pre, Visitor post)
+    {
+        this.pre = pre;
+        this.post = post;
+        nodes = new AstNode[64];
+        states = new byte[64];
+        indices = new int[64];
+        sp = 0;
+        depth = 0;
+        buf = new AstNode[8];
+        collecting = false;
+        sourceOrder = false;
+        holes = false;
+    }
+
+    /**
+     * Walk children in the order they appear in the source rather than
+     * the order Visitor visits them.  The two differ only for a Call
+     * (whose object then comes before its arguments) and a LocalVarDecl
+     * (whose type then comes before its initializer).
+     */
+    public void setSourceOrder(boolean b)
+    {
+        sourceOrder = b;
+    }
+
+    /**
+     * Walk each missing child, a null node or list, as a hole: the hook
+     * hole is called in its place, and it counts as a child for between.
+     */
+    public void setHoles(boolean b)
+    {
+        holes = b;
+    }
+
+    /**
+     * Called on a node before its children.  By default runs the pre
+     * hook visitor.
+     *
+     * @return whether the node's children should be walked
+     */
+    protected boolean enter(AstNode n)
+    {
+        return pre == null || n.accept(pre) != SKIP;
+    }
+
+    /**
+     * Called on a node after its i-th child, unless that is its last.
+     */
+    protected void between(AstNode n, int i)
+    {
+    }
+
+    /**
+     * Called on a node after its children, unless enter skipped them.
+     * By default runs the post hook visitor.
+     */
+    protected void exit(AstNode n)
+    {
+        if(post != null) n.accept(post);
+    }
+
+    /**
+     * Called in place of a node's i-th child if it is missing, when
+     * holes are walked (see setHoles).
+     */
+    protected void hole(AstNode n, int i)
+    {
+    }
+
+    /**
+     * Called on each list whose elements are about to be walked.
+     */
+    protected void enterList(AstList lst)
+    {
+    }
+
+    /**
+     * Walk a node and everything below it.
+     *
+     * @param root the node (may be null, in which case nothing is walked)
+     */
+    public void walk(AstNode root)
+    {
+        if(root == null) return;
+        depth++;
+        descend(root);
+        depth--;
+    }
+
+    /**
+     * Walk the elements of a list, in order, and everything below them.
+     */
+    public void walk(AstList lst)
+    {
+        if(lst == null) return;
+        depth++;
+        enterList(lst);
+        for(Object obj : lst)
+        {
+            if(obj instanceof AstNode)
+            {
+                descend((AstNode)obj);
+            }
+        }
+        depth--;
+    }
+
+    // walk a subtree, recursively unless it is too deep already
+    private void descend(AstNode n)
+    {
+        if(depth >= MAX_RECURSION)
+        {
+            int base = sp;
+            push(n, ENTER, 0);
+            run(base);
+            return;
+        }
+        if(!enter(n)) return;
+        AstNode savedParent = parent;
+        int savedIndex = index;
+        parent = n;
+        index = 0;
+        depth++;
+        children(n);
+        depth--;
+        parent = savedParent;
+        index = savedIndex;
+        exit(n);
+    }
+
+    // called in recursive mode for each child of 'parent', or each hole
+    private void child(AstNode n)
+    {
+        if(index > 0) between(parent, index - 1);
+        if(n == null)
+        {
+            hole(parent, index++);
+            return;
+        }
+        index++;
+        descend(n);
+    }
+
+    // process entries until the stack is back to base, so hooks may
+    // start walks of their own
+    private void run(int base)
+    {
+        while(sp > base)
+        {
+            sp--;
+            AstNode n = nodes[sp];
+            byte state = states[sp];
+            int after = indices[sp];
+            nodes[sp] = null;
+            if(state == EXIT)
+            {
+                exit(n);
+            }
+            else if(state == BETWEEN)
+            {
+                between(n, after);
+            }
+            else if(state == HOLE)
+            {
+                hole(n, after);
+            }
+            else
+            {
+                if(enter(n))
+                {
+                    push(n, EXIT, 0);
+                    for(int i = collect(n) - 1; i >= 0; i--)
+                    {
+                        if(buf[i] == null) push(n, HOLE, i);
+                        else               push(buf[i], ENTER, 0);
+                        if(i > 0) push(n, BETWEEN, i - 1);
+                        buf[i] = null;
+                    }
+                }
+            }
+        }
+    }
+
+    private void push(AstNode n, byte state, int index)
+    {
+        if(sp == nodes.length)
+        {
+            nodes = Arrays.copyOf(nodes, 2 * sp);
+            states = Arrays.copyOf(states, 2 * sp);
+            indices = Arrays.copyOf(indices, 2 * sp);
+        }
+        nodes[sp] = n;
+        states[sp] = state;
+        indices[sp] = index;
+        sp++;
+    }
+
+    /**
+     * A base class for hook visitors: unlike Visitor, none of its visit
+     * methods visit children, since the traversal does that.  Override
+     * the visit methods of the node kinds that need a hook.
+     */
+    public static class Hooks extends Visitor
+    {
+        public Object visit(Program n)           { return null; }
+        public Object visit(ClassDecl n)         { return null; }
+        public Object visit(MethodDecl n)        { return null; }
+        public Object visit(MethodDeclNonVoid n) { return visit((MethodDecl)n); }
+        public Object visit(VarDecl n)           { return null; }
+        public Object visit(LocalVarDecl n)      { return visit((VarDecl)n); }
+        public Object visit(Assign n)            { return null; }
+        public Object visit(Block n)             { return null; }
+        public Object visit(CallStmt n)          { return null; }
+        public Object visit(LocalDeclStmt n)     { return null; }
+        public Object visit(If n)                { return null; }
+        public Object visit(While n)             { return null; }
+        public Object visit(Switch n)            { return null; }
+        public Object visit(Case n)              { return null; }
+        public Object visit(ArrayLookup n)       { return null; }
+        public Object visit(Cast n)              { return null; }
+        public Object visit(Call n)              { return null; }
+        public Object visit(FieldAccess n)       { return null; }
+        public Object visit(InstanceOf n)        { return null; }
+        public Object visit(NewArray n)          { return null; }
+        public Object visit(NewObject n)         { return null; }
+        public Object visit(UnExp n)             { return null; }
+        public Object visit(BinExp n)            { return null; }
+        public Object visit(ArrayType n)         { return null; }
+        public Object visit(AstList lst)         { return null; }
+    }
+
+    // The children of a node, in the order Visitor visits them, found
+    // with a switch over the sealed node kinds: in recursive mode each
+    // child is walked as it is found, otherwise they are collected into
+    // 'buf', where a hole is null.
+
+    private int collect(AstNode n)
+    {
+        boolean saved = collecting;
+        collecting = true;
+        count = 0;
+        children(n);
+        collecting = saved;
+        return count;
+    }
+
+    private void add(AstNode n)
+    {
+        if(n == null && !holes) return;
+        if(!collecting)
+        {
+            child(n);
+            return;
+        }
+        if(count == buf.length)
+        {
+            buf = Arrays.copyOf(buf, 2 * count);
+        }
+        buf[count++] = n;
+    }
+
+    private void add(AstList<?> lst)
+    {
+        if(lst == null)
+        {
+            if(holes) add((AstNode)null);
+            return;
+        }
+        enterList(lst);
+        for(Object obj : lst)
+        {
+            if(obj instanceof AstNode)
+            {
+                add((AstNode)obj);
+            }
+        }
+    }
+
+    private void children(AstNode n)
+    {
+        // labels are tried in order, so the most common kinds come first
+        switch(n)
+        {
+            case IDExp e -> { }
+            case IntLit e -> { }
+            case BinExp b ->
+            {
+                add(b.left);
+                add(b.right);
+            }
+            case Call c ->
+            {
+                if(sourceOrder) add(c.obj);
+                add(c.args);
+                if(!sourceOrder) add(c.obj);
+            }
+            case Assign a ->
+            {
+                add(a.lhs);
+                add(a.rhs);
+            }
+            case IDType t -> { }
+            case IntType t -> { }
+            case This e -> { }
+            case Block b -> add(b.stmts);
+            case CallStmt c -> add(c.callExp);
+            case LocalDeclStmt l -> add(l.localVarDecl);
+            case LocalVarDecl v ->
+            {
+                if(sourceOrder) add(v.type);
+                add(v.initExp);
+                if(!sourceOrder) add(v.type);
+            }
+            case If i ->
+            {
+                add(i.exp);
+                add(i.trueStmt);
+                add(i.falseStmt);
+            }
+            case While w ->
+            {
+                add(w.exp);
+                add(w.body);
+            }
+            case Switch w ->
+            {
+                add(w.exp);
+                add(w.stmts);
+            }
+            case Case c -> add(c.exp);
+            case Stmt s -> { }
+
+            case UnExp u -> add(u.exp);
+            case ArrayLookup a ->
+            {
+                add(a.arrExp);
+                add(a.idxExp);
+            }
+            case Cast c ->
+            {
+                add(c.castType);
+                add(c.exp);
+            }
+            case FieldAccess f -> add(f.exp);
+            case InstanceOf i ->
+            {
+                add(i.exp);
+                add(i.checkType);
+            }
+            case NewArray a ->
+            {
+                add(a.objType);
+                add(a.sizeExp);
+            }
+            case NewObject o -> add(o.objType);
+            case Exp e -> { }
+
+            case ArrayType a -> add(a.baseType);
+            case Type t -> { }
+
+            case Program p ->
+            {
+                add(p.classDecls);
+                add(p.mainStmt);
+            }
+            case ClassDecl c -> add(c.decls);
+            case MethodDeclNonVoid m ->
+            {
+                m.materialize();
+                add(m.rtnType);
+                add(m.params);
+                add(m.stmts);
+                add(m.rtnExp);
+            }
+            case MethodDecl m ->
+            {
+                m.materialize();
+                add(m.params);
+                add(m.stmts);
+            }
+            case VarDecl v -> add(v.type);
+        }
+    }
+}
@@ -1,65 +1,256 @@
 package visitor;
 
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import syntaxtree.*;
 
 public class TreeDrawerVisitor extends Visitor
 {
+    // lines nested deeper than this give their depth as a number rather
+    // than in spaces, so that the output stays linear in the tree's size
+    // however deep it is
+    private static final int MAX_INDENT = 32;
+
     private PrintStream ps;
     private int indent;
 
+    // the limits set for -depth and -listcap (-1 for none), and the name
+    // of the classes or methods to draw for -select (null for all)
+    private int maxDepth;
+    private int listCap;
+    private String select;
+    private int selected;
+
+    // whether the last node written is at maxDepth and nothing has been
+    // said yet about the children left out
+    private boolean elisionPending;
+
+    // the items still to draw and their depths, the children scheduled
+    // by the node being drawn, and whether the stack is being drawn
+    private Object[] items;
+    private int[] depths;
+    private int sp;
+    private ArrayList<Object> scheduled;
+    private boolean drawing;
+
     public TreeDrawerVisitor(PrintStream ps)
     {
         this.ps = ps;
         indent = 0;
+        maxDepth = -1;
+        listCap = -1;
+        select = null;
+        selected = 0;
+        elisionPending = false;
+        items = new Object[64];
+        depths = new int[64];
+        sp = 0;
+        scheduled = new ArrayList<Object>();
+        drawing = false;
+    }
+
+    /**
+     * Draw nodes down to a depth only (the root is at depth 0); the
+     * children of a node at that depth are shown as a single "..." line.
+     *
+     * @param depth the deepest depth drawn, or -1 for no limit
+     */
+    public void setMaxDepth(int depth)
+    {
+        maxDepth = depth;
+    }
+
+    /**
+     * Draw only the first elements of each list, and a "... N more" line
+     * for the rest.
+     *
+     * @param cap the number of elements drawn, or -1 for no limit
+     */
+    public void setListCap(int cap)
+    {
+        listCap = cap;
+    }
+
+    /**
+     * Draw only the classes and methods of a given name, each as a tree
+     * of its own; "C.m" names method m of class C.
+     *
+     * @param name the name, or null to draw the whole program
+     */
+    public void setSelect(String name)
+    {
+        select = name;
+    }
+
+    /**
+     * @return the number of classes and methods drawn for setSelect
+     */
+    public int getSelected()
+    {
+        return selected;
+    }
+
+    private String pad()
+    {
+        if(indent <= MAX_INDENT) return " ".repeat(indent);
+        return "{" + indent + "} ";
     }
 
     private void write(String node, AstNode n)
     {
-        ps.println(" ".repeat(indent) + node + "#"+n.uniqueId);
+        ps.println(pad() + node + "#"+n.uniqueId);
+        elisionPending = indent == maxDepth;
     }
     private void write(String node, AstNode n, AstNode l)
     {
         if(l != null)
-            ps.println(" ".repeat(indent) + node + "#"+n.uniqueId + ";@" + l.uniqueId);
+            ps.println(pad() + node + "#"+n.uniqueId + ";@" + l.uniqueId);
         else
-            ps.println(" ".repeat(indent) + node + "#"+n.uniqueId);
+            ps.println(pad() + node + "#"+n.uniqueId);
+        elisionPending = indent == maxDepth;
+    }
+
+    // whether a child at the current depth is left out; the first child
+    // left out of a node says so
+    private boolean elided()
+    {
+        if(maxDepth < 0 || indent <= maxDepth) return false;
+        if(elisionPending)
+        {
+            ps.println(pad() + "...");
+            elisionPending = false;
+        }
+        return true;
     }
 
+    // Children are not drawn by recursion, which a deeply nested program
+    // would overflow, but from an explicit stack of the items still to
+    // draw, each with its depth: an item is a node, a list, null, or a
+    // "... N more" line.  The outermost run draws its item and all below
+    // it; within that, the runs of a visit method only schedule the
+    // node's children, which are then drawn in the order scheduled.
     private void run(AstNode n)
     {
-        indent++;
-        if(n == null)
+        schedule(n);
+    }
+    private void run(AstList lst)
+    {
+        schedule(lst);
+    }
+
+    private void schedule(Object item)
+    {
+        if(drawing)
         {
-            ps.println(" ".repeat(indent) + "??null??");
+            scheduled.add(item);
+            return;
         }
-        else
+        int top = indent;
+        drawing = true;
+        push(item, indent + 1);
+        while(sp > 0)
         {
-            n.accept(this);
+            sp--;
+            Object next = items[sp];
+            int depth = depths[sp];
+            items[sp] = null;
+            draw(next, depth);
+            for(int i = scheduled.size() - 1; i >= 0; i--)
+            {
+                push(scheduled.get(i), depth + 1);
+            }
+            scheduled.clear();
         }
-        indent--;
+        drawing = false;
+        indent = top;
     }
-    private void run(AstList lst)
+
+    // draw one item, scheduling what is below it
+    private void draw(Object item, int depth)
     {
-        indent++;
-        if(lst == null)
+        indent = depth;
+        if(elided())
         {
-            ps.println(" ".repeat(indent) + "??null??");
+            // left out, along with the "... N more" line of a list whose
+            // elements are
         }
-        else
+        else if(item instanceof String)
+        {
+            ps.println(pad() + item);
+        }
+        else if(item == null)
+        {
+            ps.println(pad() + "??null??");
+        }
+        else if(item instanceof AstList)
         {
-            ps.println(" ".repeat(indent) + "*====list====*");
+            AstList<?> lst = (AstList<?>)item;
+            ps.println(pad() + "*====list====*");
+            elisionPending = indent == maxDepth;
+            int i = 0;
             for(Object obj : lst)
             {
-                run((AstNode)obj);
+                if(i == listCap)
+                {
+                    scheduled.add("... " + (lst.size() - i) + " more");
+                    break;
+                }
+                scheduled.add(obj);
+                i++;
             }
         }
-        indent--;
+        else
+        {
+            ((AstNode)item).accept(this);
+        }
+    }
+
+    private void push(Object item, int depth)
+    {
+        if(sp == items.length)
+        {
+            items = Arrays.copyOf(items, 2 * sp);
+            depths = Arrays.copyOf(depths, 2 * sp);
+        }
+        items[sp] = item;
+        depths[sp] = depth;
+        sp++;
     }
 
+    // draw the selected classes and methods, each from depth 0
+    private void drawSelected(Program n)
+    {
+        int dot = select.indexOf('.');
+        String className = dot < 0 ? null : select.substring(0, dot);
+        String methName = dot < 0 ? select : select.substring(dot + 1);
+        for(ClassDecl c : n.classDecls)
+        {
+            if(className == null && c.name.equals(select))
+            {
+                c.accept(this);
+                selected++;
+                continue;
+            }
+            if(className != null && !c.name.equals(className)) continue;
+            for(Decl d : c.decls)
+            {
+                if(d instanceof MethodDecl && d.name.equals(methName))
+                {
+                    d.accept(this);
+                    selected++;
+                }
+            }
+        }
+    }
 
     public Object visit(Program n)
     {
+        if(select != null)
+        {
+            drawSelected(n);
+            return null;
+        }
         write("Program",n);
         run(n.classDecls);
         run(n.mainStmt);
@@ -80,6 +271,7 @@ public class TreeDrawerVisitor extends Visitor
 
     public Object visit(MethodDeclVoid n)
     {
+        n.materialize();
         write("MethodDeclVoid["+n.name+"]",n, n.superMethod);
         run(n.params);
         run(n.stmts);
@@ -88,6 +280,7 @@ public class TreeDrawerVisitor extends Visitor
 
     public Object visit(MethodDeclNonVoid n)
     {
+        n.materialize();
         write("MethodDeclNonVoid["+n.name+"]",n, n.superMethod);
         run(n.rtnType);
         run(n.params);
@@ -0,0 +1,296 @@
+package visitor;
+
+import syntaxtree.*;
+
+/**
+ * A visitor whose visit methods take an argument of type A and return a
+ * result of type R.  By default it walks the tree like Visitor and
+ * returns null.
+ */
+public class TypedVisitor<R,A>
+{
+    ////////////////////////////////////////////////////
+    // Abstract nodes
+    ////////////////////////////////////////////////////
+
+    public R visit(AstNode n, A arg)     { return null; }
+    public R visit(Decl n, A arg)        { return null; }
+    public R visit(Stmt n, A arg)        { return null; }
+    public R visit(Exp n, A arg)         { return null; }
+    public R visit(Type n, A arg)        { return null; }
+
+    public R visit(Label n, A arg)       { return null; }
+    public R visit(BreakTarget n, A arg) { return null; }
+
+
+    ////////////////////////////////////////////////////
+    // Program
+    ////////////////////////////////////////////////////
+
+    public R visit(Program n, A arg)
+    {
+        n.classDecls.accept(this, arg);
+        n.mainStmt.accept(this, arg);
+        return null;
+    }
+
+    ////////////////////////////////////////////////////
+    // Decls
+    ////////////////////////////////////////////////////
+
+    public R visit(ClassDecl n, A arg)
+    {
+        n.decls.accept(this, arg);
+        return null;
+    }
+
+    public R visit(MethodDecl n, A arg)
+    {
+        n.materialize();
+        n.params.accept(this, arg);
+        n.stmts.accept(this, arg);
+        return null;
+    }
+
+    public R visit(MethodDeclVoid n, A arg)
+    {
+        return visit((MethodDecl)n, arg);
+    }
+
+    public R visit(MethodDeclNonVoid n, A arg)
+    {
+        n.rtnType.accept(this, arg);
+        visit((MethodDecl)n, arg);
+        n.rtnExp.accept(this, arg);
+        return null;
+    }
+
+    public R visit(VarDecl n, A arg)
+    {
+        n.type.accept(this, arg);
+        return null;
+    }
+
+    public R visit(FieldDecl n, A arg)
+    {
+        return visit((VarDecl)n, arg);
+    }
+
+    public R visit(ParamDecl n, A arg)
+    {
+        return visit((VarDecl)n, arg);
+    }
+
+    public R visit(LocalVarDecl n, A arg)
+    {
+        n.initExp.accept(this, arg);
+        return visit((VarDecl)n, arg);
+    }
+
+    ////////////////////////////////////////////////////
+    // Stmts
+    ////////////////////////////////////////////////////
+
+    public R visit(Assign n, A arg)
+    {
+        n.lhs.accept(this, arg);
+        n.rhs.accept(this, arg);
+        return null;
+    }
+
+    public R visit(Block n, A arg)
+    {
+        n.stmts.accept(this, arg);
+        return null;
+    }
+
+    public R visit(CallStmt n, A arg)
+    {
+        n.callExp.accept(this, arg);
+        return null;
+    }
+
+    public R visit(LocalDeclStmt n, A arg)
+    {
+        n.localVarDecl.accept(this, arg);
+        return null;
+    }
+
+    public R visit(If n, A arg)
+    {
+        n.exp.accept(this, arg);
+        n.trueStmt.accept(this, arg);
+        n.falseStmt.accept(this, arg);
+        return null;
+    }
+
+    public R visit(While n, A arg)
+    {
+        n.exp.accept(this, arg);
+        n.body.accept(this, arg);
+        return null;
+    }
+
+    public R visit(Break n, A arg)
+    {
+        return null;
+    }
+
+    public R visit(Switch n, A arg)
+    {
+        n.exp.accept(this, arg);
+        n.stmts.accept(this, arg);
+        return null;
+    }
+
+    public R visit(Case n, A arg)
+    {
+        n.exp.accept(this, arg);
+        return null;
+    }
+
+    public R visit(Default n, A arg)
+    {
+        return null;
+    }
+
+    ////////////////////////////////////////////////////
+    // Expressions
+    ////////////////////////////////////////////////////
+
+
+    public R visit(ArrayLookup n, A arg)
+    {
+        n.arrExp.accept(this, arg);
+        n.idxExp.accept(this, arg);
+        return null;
+    }
+
+    public R visit(Cast n, A arg)
+    {
+        n.castType.accept(this, arg);
+        n.exp.accept(this, arg);
+        return null;
+    }
+
+    public R visit(Call n, A arg)
+    {
+        n.args.accept(this, arg);
+        n.obj.accept(this, arg);
+        return null;
+    }
+
+    public R visit(FieldAccess n, A arg)
+    {
+        n.exp.accept(this, arg);
+        return null;
+    }
+
+    public R visit(InstanceOf n, A arg)
+    {
+        n.exp.accept(this, arg);
+        n.checkType.accept(this, arg);
+        return null;
+    }
+
+    public R visit(NewArray n, A arg)
+    {
+        n.objType.accept(this, arg);
+        n.sizeExp.accept(this, arg);
+        return null;
+    }
+
+    public R visit(NewObject n, A arg)
+    {
+        n.objType.accept(this, arg);
+        return null;
+    }
+
+
+    ////////////////////////////////////////////////////
+    // Unary Expressions
+    ////////////////////////////////////////////////////
+
+    public R visit(UnExp n, A arg)
+    {
+        n.exp.accept(this, arg);
+        return null;
+    }
+
+    public R visit(Not n, A arg)         { return visit((UnExp)n, arg); }
+    public R visit(ArrayLength n, A arg) { return visit((UnExp)n, arg); }
+
+    ////////////////////////////////////////////////////
+    // Binary Expressions
+    ////////////////////////////////////////////////////
+
+    public R visit(BinExp n, A arg)
+    {
+        n.left.accept(this, arg);
+        n.right.accept(this, arg);
+        return null;
+    }
+
+    public R visit(And n, A arg)         { return visit((BinExp)n, arg); }
+    public R visit(Equals n, A arg)      { return visit((BinExp)n, arg); }
+    public R visit(LessThan n, A arg)    { return visit((BinExp)n, arg); }
+    public R visit(GreaterThan n, A arg) { return visit((BinExp)n, arg); }
+    public R visit(Minus n, A arg)       { return visit((BinExp)n, arg); }
+    public R visit(Or n, A arg)          { return visit((BinExp)n, arg); }
+    public R visit(Plus n, A arg)        { return visit((BinExp)n, arg); }
+    public R visit(Times n, A arg)       { return visit((BinExp)n, arg); }
+    public R visit(Divide n, A arg)      { return visit((BinExp)n, arg); }
+    public R visit(Remainder n, A arg)   { return visit((BinExp)n, arg); }
+
+    ////////////////////////////////////////////////////
+    // Leaf Expressions
+    ////////////////////////////////////////////////////
+
+    public R visit(False n, A arg)     { return null; }
+    public R visit(Null n, A arg)      { return null; }
+    public R visit(Super n, A arg)     { return null; }
+    public R visit(This n, A arg)      { return null; }
+    public R visit(True n, A arg)      { return null; }
+    public R visit(IDExp n, A arg)     { return null; }
+    public R visit(IntLit n, A arg)    { return null; }
+    public R visit(StringLit n, A arg) { return null; }
+
+    ////////////////////////////////////////////////////
+    // Types
+    ////////////////////////////////////////////////////
+
+    public R visit(ArrayType n, A arg)
+    {
+        n.baseType.accept(this, arg);
+        return null;
+    }
+
+    public R visit(BoolType n, A arg)  { return null; }
+    public R visit(IntType n, A arg)   { return null; }
+    public R visit(IDType n, A arg)    { return null; }
+    public R visit(VoidType n, A arg)  { return null; }
+    public R visit(NullType n, A arg)  { return null; }
+    public R visit(ErrorType n, A arg) { return null; }
+
+    ////////////////////////////////////////////////////
+    // Lists
+    ////////////////////////////////////////////////////
+
+    public R visit(AstList lst, A arg)
+    {
+        for(Object obj : lst)
+        {
+            if(obj != null && obj instanceof AstNode)
+            {
+                ((AstNode)obj).accept(this, arg);
+            }
+        }
+        return null;
+    }
+
+    public R visit(ClassDeclList n, A arg) { return visit((AstList)n, arg); }
+    public R visit(ExpList n, A arg)       { return visit((AstList)n, arg); }
+    public R visit(DeclList n, A arg)      { return visit((AstList)n, arg); }
+    public R visit(StmtList n, A arg)      { return visit((AstList)n, arg); }
+    public R visit(VarDeclList n, A arg)   { return visit((AstList)n, arg); }
+}
@@ -41,6 +41,7 @@ public class Visitor
 
     public Object visit(MethodDecl n)
     {
+        n.materialize();
         n.params.accept(this);
         n.stmts.accept(this);
         return null;
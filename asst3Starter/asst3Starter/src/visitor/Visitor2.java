@@ -40,6 +40,8 @@ public class Visitor2
 
     public Object visit(MethodDecl m1, MethodDecl m2)
     {
+        m1.materialize();
+        m2.materialize();
         m1.params.accept(this, m2.params);
         m1.stmts.accept(this, m2.stmts);
         return null;
@@ -0,0 +1,269 @@
+package visitor;
+
+import syntaxtree.*;
+
+/**
+ * A visitor whose visit methods take an argument of type A and return
+ * nothing.  By default it walks the tree like Visitor.
+ */
+public class VoidVisitor<A>
+{
+    ////////////////////////////////////////////////////
+    // Abstract nodes
+    ////////////////////////////////////////////////////
+
+    public void visit(AstNode n, A arg)     { }
+    public void visit(Decl n, A arg)        { }
+    public void visit(Stmt n, A arg)        { }
+    public void visit(Exp n, A arg)         { }
+    public void visit(Type n, A arg)        { }
+
+    public void visit(Label n, A arg)       { }
+    public void visit(BreakTarget n, A arg) { }
+
+
+    ////////////////////////////////////////////////////
+    // Program
+    ////////////////////////////////////////////////////
+
+    public void visit(Program n, A arg)
+    {
+        n.classDecls.accept(this, arg);
+        n.mainStmt.accept(this, arg);
+    }
+
+    ////////////////////////////////////////////////////
+    // Decls
+    ////////////////////////////////////////////////////
+
+    public void visit(ClassDecl n, A arg)
+    {
+        n.decls.accept(this, arg);
+    }
+
+    public void visit(MethodDecl n, A arg)
+    {
+        n.materialize();
+        n.params.accept(this, arg);
+        n.stmts.accept(this, arg);
+    }
+
+    public void visit(MethodDeclVoid n, A arg)
+    {
+        visit((MethodDecl)n, arg);
+    }
+
+    public void visit(MethodDeclNonVoid n, A arg)
+    {
+        n.rtnType.accept(this, arg);
+        visit((MethodDecl)n, arg);
+        n.rtnExp.accept(this, arg);
+    }
+
+    public void visit(VarDecl n, A arg)
+    {
+        n.type.accept(this, arg);
+    }
+
+    public void visit(FieldDecl n, A arg)
+    {
+        visit((VarDecl)n, arg);
+    }
+
+    public void visit(ParamDecl n, A arg)
+    {
+        visit((VarDecl)n, arg);
+    }
+
+    public void visit(LocalVarDecl n, A arg)
+    {
+        n.initExp.accept(this, arg);
+        visit((VarDecl)n, arg);
+    }
+
+    ////////////////////////////////////////////////////
+    // Stmts
+    ////////////////////////////////////////////////////
+
+    public void visit(Assign n, A arg)
+    {
+        n.lhs.accept(this, arg);
+        n.rhs.accept(this, arg);
+    }
+
+    public void visit(Block n, A arg)
+    {
+        n.stmts.accept(this, arg);
+    }
+
+    public void visit(CallStmt n, A arg)
+    {
+        n.callExp.accept(this, arg);
+    }
+
+    public void visit(LocalDeclStmt n, A arg)
+    {
+        n.localVarDecl.accept(this, arg);
+    }
+
+    public void visit(If n, A arg)
+    {
+        n.exp.accept(this, arg);
+        n.trueStmt.accept(this, arg);
+        n.falseStmt.accept(this, arg);
+    }
+
+    public void visit(While n, A arg)
+    {
+        n.exp.accept(this, arg);
+        n.body.accept(this, arg);
+    }
+
+    public void visit(Break n, A arg)
+    {
+    }
+
+    public void visit(Switch n, A arg)
+    {
+        n.exp.accept(this, arg);
+        n.stmts.accept(this, arg);
+    }
+
+    public void visit(Case n, A arg)
+    {
+        n.exp.accept(this, arg);
+    }
+
+    public void visit(Default n, A arg)
+    {
+    }
+
+    ////////////////////////////////////////////////////
+    // Expressions
+    ////////////////////////////////////////////////////
+
+
+    public void visit(ArrayLookup n, A arg)
+    {
+        n.arrExp.accept(this, arg);
+        n.idxExp.accept(this, arg);
+    }
+
+    public void visit(Cast n, A arg)
+    {
+        n.castType.accept(this, arg);
+        n.exp.accept(this, arg);
+    }
+
+    public void visit(Call n, A arg)
+    {
+        n.args.accept(this, arg);
+        n.obj.accept(this, arg);
+    }
+
+    public void visit(FieldAccess n, A arg)
+    {
+        n.exp.accept(this, arg);
+    }
+
+    public void visit(InstanceOf n, A arg)
+    {
+        n.exp.accept(this, arg);
+        n.checkType.accept(this, arg);
+    }
+
+    public void visit(NewArray n, A arg)
+    {
+        n.objType.accept(this, arg);
+        n.sizeExp.accept(this, arg);
+    }
+
+    public void visit(NewObject n, A arg)
+    {
+        n.objType.accept(this, arg);
+    }
+
+
+    ////////////////////////////////////////////////////
+    // Unary Expressions
+    ////////////////////////////////////////////////////
+
+    public void visit(UnExp n, A arg)
+    {
+        n.exp.accept(this, arg);
+    }
+
+    public void visit(Not n, A arg)         { visit((UnExp)n, arg); }
+    public void visit(ArrayLength n, A arg) { visit((UnExp)n, arg); }
+
+    ////////////////////////////////////////////////////
+    // Binary Expressions
+    ////////////////////////////////////////////////////
+
+    public void visit(BinExp n, A arg)
+    {
+        n.left.accept(this, arg);
+        n.right.accept(this, arg);
+    }
+
+    public void visit(And n, A arg)         { visit((BinExp)n, arg); }
+    public void visit(Equals n, A arg)      { visit((BinExp)n, arg); }
+    public void visit(LessThan n, A arg)    { visit((BinExp)n, arg); }
+    public void visit(GreaterThan n, A arg) { visit((BinExp)n, arg); }
+    public void visit(Minus n, A arg)       { visit((BinExp)n, arg); }
+    public void visit(Or n, A arg)          { visit((BinExp)n, arg); }
+    public void visit(Plus n, A arg)        { visit((BinExp)n, arg); }
+    public void visit(Times n, A arg)       { visit((BinExp)n, arg); }
+    public void visit(Divide n, A arg)      { visit((BinExp)n, arg); }
+    public void visit(Remainder n, A arg)   { visit((BinExp)n, arg); }
+
+    ////////////////////////////////////////////////////
+    // Leaf Expressions
+    ////////////////////////////////////////////////////
+
+    public void visit(False n, A arg)     { }
+    public void visit(Null n, A arg)      { }
+    public void visit(Super n, A arg)     { }
+    public void visit(This n, A arg)      { }
+    public void visit(True n, A arg)      { }
+    public void visit(IDExp n, A arg)     { }
+    public void visit(IntLit n, A arg)    { }
+    public void visit(StringLit n, A arg) { }
+
+    ////////////////////////////////////////////////////
+    // Types
+    ////////////////////////////////////////////////////
+
+    public void visit(ArrayType n, A arg)
+    {
+        n.baseType.accept(this, arg);
+    }
+
+    public void visit(BoolType n, A arg)  { }
+    public void visit(IntType n, A arg)   { }
+    public void visit(IDType n, A arg)    { }
+    public void visit(VoidType n, A arg)  { }
+    public void visit(NullType n, A arg)  { }
+    public void visit(ErrorType n, A arg) { }
+
+    ////////////////////////////////////////////////////
+    // Lists
+    ////////////////////////////////////////////////////
+
+    public void visit(AstList lst, A arg)
+    {
+        for(Object obj : lst)
+        {
+            if(obj != null && obj instanceof AstNode)
+            {
+                ((AstNode)obj).accept(this, arg);
+            }
+        }
+    }
+
+    public void visit(ClassDeclList n, A arg) { visit((AstList)n, arg); }
+    public void visit(ExpList n, A arg)       { visit((AstList)n, arg); }
+    public void visit(DeclList n, A arg)      { visit((AstList)n, arg); }
+    public void visit(StmtList n, A arg)      { visit((AstList)n, arg); }
+    public void visit(VarDeclList n, A arg)   { visit((AstList)n, arg); }
+}
@@ -0,0 +1,224 @@
+package visitor;
+
+import java.util.Arrays;
+import java.util.Collection;
+import syntaxtree.*;
+
+/**
+ * A cross-reference index from declarations (VarDecl, ClassDecl,
+ * MethodDecl) to the nodes that refer to them.
+ *
+ * The index is stored in compressed-row form over dense declaration
+ * numbers: the declarations with uses are numbered 0, 1, 2, ... in
+ * order of id (declIds), and the uses of declaration number k are
+ * entries start[k] .. start[k+1]-1 of useIds, the uniqueIds of the
+ * using nodes.  A query costs a binary search over declIds plus the
+ * size of the result.
+ *
+ * Ids are mapped back to nodes by a table of just the nodes the index
+ * names, the declarations and their uses, sorted by id (nodeIds and
+ * nodes).  It is filled by one walk of the tree when the index is
+ * built, so the index costs nothing for nodes it does not name.
+ */
+public class XrefIndex
+{
+    private final int[] declIds;
+    private final int[] start;
+    private final int[] useIds;
+
+    private final int[] nodeIds;
+    private final AstNode[] nodes;
+
+    private XrefIndex(int[] declIds, int[] start, int[] useIds,
+                      int[] nodeIds, AstNode[] nodes)
+    {
+        this.declIds = declIds;
+        this.start = start;
+        this.useIds = useIds;
+        this.nodeIds = nodeIds;
+        this.nodes = nodes;
+    }
+
+    /**
+     * @return the number of nodes referring to decl
+     */
+    public int count(AstNode decl)
+    {
+        int k = Arrays.binarySearch(declIds, decl.uniqueId);
+        return k < 0 ? 0 : start[k+1] - start[k];
+    }
+
+    /**
+     * @return the uniqueIds of the nodes referring to decl, in the order
+     *         the references were bound
+     */
+    public int[] useIds(AstNode decl)
+    {
+        int k = Arrays.binarySearch(declIds, decl.uniqueId);
+        if(k < 0) return new int[0];
+        return Arrays.copyOfRange(useIds, start[k], start[k+1]);
+    }
+
+    /**
+     * @return the nodes referring to decl, in the order the references
+     *         were bound
+     */
+    public AstNode[] uses(AstNode decl)
+    {
+        int k = Arrays.binarySearch(declIds, decl.uniqueId);
+        if(k < 0) return new AstNode[0];
+        AstNode[] result = new AstNode[start[k+1] - start[k]];
+        for(int i = 0; i < result.length; i++)
+        {
+            result[i] = node(useIds[start[k] + i]);
+        }
+        return result;
+    }
+
+    /**
+     * @return the node with the given uniqueId, if it is a declaration
+     *         or a use in the index, and null otherwise
+     */
+    public AstNode node(int id)
+    {
+        int k = Arrays.binarySearch(nodeIds, id);
+        return k < 0 ? null : nodes[k];
+    }
+
+    /**
+     * @return the total number of references in the index
+     */
+    public int size()
+    {
+        return useIds.length;
+    }
+
+    /**
+     * @return an estimate of the heap used by the index, in bytes
+     */
+    public long footprintBytes()
+    {
+        return 16 + 5 * 16 + 4L * declIds.length + 4L * start.length
+            + 4L * useIds.length + 4L * nodeIds.length + 4L * nodes.length;
+    }
+
+    /**
+     * Collects references while binding; build() turns them into an index.
+     */
+    public static class Builder
+    {
+        private int[] declIds;
+        private int[] uses;
+        private int size;
+
+        public Builder()
+        {
+            declIds = new int[64];
+            uses = new int[64];
+            size = 0;
+        }
+
+        /**
+         * Record that use refers to decl.
+         */
+        public void add(AstNode decl, AstNode use)
+        {
+            if(size == declIds.length)
+            {
+                declIds = Arrays.copyOf(declIds, size * 2);
+                uses = Arrays.copyOf(uses, size * 2);
+            }
+            declIds[size] = decl.uniqueId;
+            uses[size] = use.uniqueId;
+            size++;
+        }
+
+        /**
+         * Append the references recorded by another builder.
+         */
+        public void addAll(Builder other)
+        {
+            for(int i = 0; i < other.size; i++)
+            {
+                if(size == declIds.length)
+                {
+                    declIds = Arrays.copyOf(declIds, size * 2);
+                    uses = Arrays.copyOf(uses, size * 2);
+                }
+                declIds[size] = other.declIds[i];
+                uses[size] = other.uses[i];
+                size++;
+            }
+        }
+
+        /**
+         * @param root the tree the references were recorded on
+         * @param classes every class declaration, including those not in
+         *        the tree (the predefined ones), whose members may be
+         *        referred to
+         * @return the index of the references recorded so far
+         */
+        public XrefIndex build(AstNode root, Collection<ClassDecl> classes)
+        {
+            // number the declarations densely, in order of id
+            int[] decls = distinct(Arrays.copyOf(declIds, size));
+
+            // counting sort on the declaration number, stable in binding
+            // order
+            int[] number = new int[size];
+            int[] start = new int[decls.length + 1];
+            for(int i = 0; i < size; i++)
+            {
+                number[i] = Arrays.binarySearch(decls, declIds[i]);
+                start[number[i] + 1]++;
+            }
+            for(int k = 0; k < decls.length; k++)
+            {
+                start[k+1] += start[k];
+            }
+            int[] next = Arrays.copyOf(start, start.length);
+            int[] useIds = new int[size];
+            for(int i = 0; i < size; i++)
+            {
+                useIds[next[number[i]]++] = uses[i];
+            }
+
+            // find the nodes with the ids named
+            int[] all = Arrays.copyOf(decls, decls.length + size);
+            System.arraycopy(uses, 0, all, decls.length, size);
+            int[] nodeIds = distinct(all);
+            AstNode[] nodes = new AstNode[nodeIds.length];
+            boolean[] classesDone = { false };
+            Traversal t = new Traversal()
+            {
+                protected boolean enter(AstNode n)
+                {
+                    int k = Arrays.binarySearch(nodeIds, n.uniqueId);
+                    if(k >= 0) nodes[k] = n;
+                    return !(classesDone[0] && n instanceof ClassDecl);
+                }
+            };
+            for(ClassDecl c : classes)
+            {
+                t.walk(c);
+            }
+            // what is left of the tree is outside the classes, i.e. the
+            // main statement
+            classesDone[0] = true;
+            t.walk(root);
+            return new XrefIndex(decls, start, useIds, nodeIds, nodes);
+        }
+
+        // sort ids, dropping repeats
+        private static int[] distinct(int[] ids)
+        {
+            Arrays.sort(ids);
+            int n = 0;
+            for(int i = 0; i < ids.length; i++)
+            {
+                if(n == 0 || ids[i] != ids[n-1]) ids[n++] = ids[i];
+            }
+            return Arrays.copyOf(ids, n);
+        }
+    }
+}